@@ -0,0 +1,230 @@
+package org.codibly.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.FuelProfileProperties;
+import org.codibly.config.GenerationCacheProperties;
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.response.DailyGenerationResponse;
+import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.model.EnergySource;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.service.GenerationCache;
+import org.codibly.service.GenerationDataLoader;
+import org.codibly.service.GenerationService;
+import org.codibly.service.profile.FuelProfiles;
+import org.codibly.service.window.CleanEnergyWindowIndex;
+import org.codibly.service.window.CleanEnergyWindowSearch;
+import org.codibly.time.TimeProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU cost of the generation endpoints on a warm cache, so the numbers cover aggregation
+ * and window search only. The fixed time provider stretches the requested range to the configured horizon,
+ * which lets the same service code run over timelines from three days up to a year.
+ * Unbounded window requests are read from the table prepared with the window index, so building the index
+ * and searching it without that table are measured separately.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec}; the gc profiler reports the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationServiceBenchmark {
+
+    private static final String[] FUELS =
+            {"biomass", "coal", "imports", "gas", "nuclear", "other", "hydro", "solar", "wind"};
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2025-01-01T00:00Z");
+
+    private static final long HALF_HOUR = 1800;
+
+    private static final GenerationFetchProperties.Hedge NO_HEDGE =
+            new GenerationFetchProperties.Hedge(false, 0.95, Duration.ofMillis(200));
+
+    private static final Map<String, Set<String>> PROFILES = Map.of(
+            "renewable", Set.of("biomass", "hydro", "wind", "solar"),
+            "low-carbon", Set.of("nuclear", "hydro", "wind", "solar"));
+
+    private static final List<String> ALL_PROFILES = List.of("clean", "renewable", "low-carbon");
+
+    private static final int MAX_WINDOW_SIZE = 12;
+
+    @Param({"3", "30", "365"})
+    private int days;
+
+    private ExecutorService executor;
+
+    private GenerationService generationService;
+
+    private double[] cleanShares;
+
+    private CleanEnergyWindowIndex windowIndex;
+
+    private ChargingWindowRequest boundedRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GenerationTimeline timeline = syntheticTimeline(days);
+        CarbonIntensityClient carbonIntensityClient = new CarbonIntensityClient() {
+            @Override
+            public GenerationTimeline getGenerationMix(String from, String to) {
+                return timeline;
+            }
+
+            @Override
+            public GenerationTimeline getRegionalGenerationMix(String from, String to, int regionId) {
+                return timeline;
+            }
+        };
+        TimeProvider timeProvider = new FixedHorizonTimeProvider(days);
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        GenerationDataLoader loader = new GenerationDataLoader(carbonIntensityClient,
+                new GenerationFetchProperties(Duration.ofDays(7), 4, NO_HEDGE), executor, timeProvider, Optional.empty(), new SimpleMeterRegistry());
+        GenerationCache cache = new GenerationCache(loader, timeProvider,
+                new GenerationCacheProperties(Duration.ofDays(365), Duration.ofDays(365), 64, Duration.ofHours(6), Duration.ofMinutes(1), 4), executor);
+        generationService = new GenerationService(timeProvider, cache,
+                new FuelProfiles(new FuelProfileProperties(PROFILES)), new SimpleMeterRegistry());
+
+        generationService.getThreeDaysAverage();
+        generationService.findOptimalChargingWindow(3);
+
+        cleanShares = cleanShares(timeline);
+        windowIndex = new CleanEnergyWindowIndex(new CleanEnergyWindowSearch(cleanShares), MAX_WINDOW_SIZE);
+        boundedRequest = new ChargingWindowRequest(3, START.plusDays(1), START.plusDays(days));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<DailyGenerationResponse> threeDaysAverage() {
+        return generationService.getThreeDaysAverage();
+    }
+
+    @Benchmark
+    public OptimalChargingWindowResponse optimalChargingWindow() {
+        return generationService.findOptimalChargingWindow(3);
+    }
+
+    @Benchmark
+    public List<DailyGenerationResponse> threeDaysAverageWithProfiles() {
+        return generationService.getThreeDaysAverage(ALL_PROFILES);
+    }
+
+    @Benchmark
+    public OptimalChargingWindowResponse optimalChargingWindowWithProfiles() {
+        return generationService.findOptimalChargingWindow(3, ALL_PROFILES);
+    }
+
+    @Benchmark
+    public OptimalChargingWindowResponse boundedChargingWindow() {
+        return generationService.findOptimalChargingWindow(boundedRequest, List.of());
+    }
+
+    @Benchmark
+    public CleanEnergyWindowIndex buildWindowIndex() {
+        return new CleanEnergyWindowIndex(new CleanEnergyWindowSearch(cleanShares), MAX_WINDOW_SIZE);
+    }
+
+    @Benchmark
+    public int scanBestWindow() {
+        return new CleanEnergyWindowSearch(cleanShares).findBestWindow(6);
+    }
+
+    @Benchmark
+    public int indexedBestWindow() {
+        return windowIndex.findBestWindow(6, 48, cleanShares.length);
+    }
+
+    private static double[] cleanShares(GenerationTimeline timeline) {
+        double[] shares = new double[timeline.size()];
+        for (int f = 0; f < timeline.fuelCount(); f++) {
+            if (!EnergySource.isClean(timeline.fuel(f))) {
+                continue;
+            }
+            for (int i = 0; i < shares.length; i++) {
+                shares[i] += timeline.percentage(f, i);
+            }
+        }
+        return shares;
+    }
+
+    private static GenerationTimeline syntheticTimeline(int days) {
+        Random random = new Random(42);
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        long start = START.toEpochSecond();
+        for (int i = 0; i < days * 48; i++) {
+            builder.interval(start + i * HALF_HOUR, start + (i + 1) * HALF_HOUR);
+            for (String fuel : FUELS) {
+                builder.percentage(fuel, random.nextDouble() * 100 / FUELS.length);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Time provider fixed at the synthetic start day whose end of day is moved forward,
+     * so the three-day range requested by the service spans the whole benchmark horizon.
+     */
+    private static final class FixedHorizonTimeProvider implements TimeProvider {
+
+        private final int days;
+
+        private FixedHorizonTimeProvider(int days) {
+            this.days = days;
+        }
+
+        @Override
+        public LocalDate getLocalDate() {
+            return START.toLocalDate();
+        }
+
+        @Override
+        public ZonedDateTime getStartOfDay() {
+            return START;
+        }
+
+        @Override
+        public ZonedDateTime getEndOfDay() {
+            return START.plusDays(days - 3L);
+        }
+
+        @Override
+        public Instant getInstant() {
+            return START.toInstant();
+        }
+    }
+}
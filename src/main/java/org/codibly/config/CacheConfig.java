@@ -0,0 +1,11 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(GenerationCacheProperties.class)
+public class CacheConfig {
+}
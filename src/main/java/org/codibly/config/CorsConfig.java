@@ -14,7 +14,7 @@ public class CorsConfig {
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/api/v1/**")
                         .allowedOrigins("https://zadaniefront.onrender.com")
-                        .allowedMethods("GET")
+                        .allowedMethods("GET", "POST")
                         .allowCredentials(true);
             }
         };
@@ -1,14 +1,72 @@
 package org.codibly.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.Request;
 import feign.RequestInterceptor;
+import feign.http2client.Http2Client;
+import org.codibly.externalClient.GenerationTimelineDecoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
+@EnableConfigurationProperties(GenerationTransportProperties.class)
 public class FeignConfig {
 
     @Bean
     public RequestInterceptor myRequestInterceptor() {
         return template -> template.uri(template.path().replaceAll("%3A", ":"));
     }
+
+    @Bean
+    public GenerationTimelineDecoder generationTimelineDecoder(ObjectMapper objectMapper) {
+        return new GenerationTimelineDecoder(objectMapper.getFactory());
+    }
+
+    @Bean
+    public Request.Options feignOptions(GenerationTransportProperties properties) {
+        return new Request.Options(
+                properties.connectTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                properties.readTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                true);
+    }
+
+    /**
+     * JDK HttpClient transport. The client keeps a pool of keep-alive connections, negotiates HTTP/2
+     * and runs on the upstream virtual-thread executor. Its connect timeout and redirect policy match
+     * the Feign options, so Feign reuses this client rather than creating its own.
+     * <p>
+     * How long idle connections stay in the pool is a JVM-wide setting of the JDK HttpClient, read once when
+     * the first client is created, so it is passed as {@code -Djdk.httpclient.keepalive.timeout} (in seconds)
+     * on the command line rather than configured here.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "generation.transport", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public Client feignClient(GenerationTransportProperties properties,
+                              @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(properties.httpVersion())
+                .connectTimeout(properties.connectTimeout())
+                .followRedirects(HttpClient.Redirect.ALWAYS)
+                .executor(upstreamExecutor)
+                .build();
+        return new Http2Client(httpClient);
+    }
+
+    /**
+     * Asks the upstream for gzip-compressed responses, which the JDK HttpClient transport
+     * decompresses while the body is streamed into the decoder.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "generation.transport", name = {"enabled", "gzip"}, havingValue = "true", matchIfMissing = true)
+    public RequestInterceptor gzipRequestInterceptor() {
+        return template -> template.header("Accept-Encoding", "gzip");
+    }
 }
@@ -0,0 +1,18 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties({GenerationFetchProperties.class, GenerationHistoryProperties.class})
+public class FetchConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService upstreamExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
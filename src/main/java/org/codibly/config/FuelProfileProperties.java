@@ -0,0 +1,17 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Named fuel-classification profiles, for example {@code generation.fuel-profiles.renewable=biomass,hydro,wind,solar}.
+ * The built-in {@code clean} profile holds the clean energy sources and does not need to be configured.
+ *
+ * @param fuelProfiles fuels counted by each profile, keyed by profile name
+ */
+@ConfigurationProperties(prefix = "generation")
+public record FuelProfileProperties(
+        Map<String, Set<String>> fuelProfiles
+) {}
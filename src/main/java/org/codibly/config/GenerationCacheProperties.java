@@ -0,0 +1,26 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the generation timeline cache.
+ *
+ * @param ttl               how long a loaded timeline is served before a request reloads it synchronously
+ * @param expireAfterAccess how long a range may go unrequested before it is evicted and no longer refreshed
+ * @param maxEntries        maximum number of cached ranges, least recently used ranges are evicted first
+ * @param maxStale          how long past the TTL an expired timeline may still be served when reloading it fails
+ * @param staleRetryInterval how long a stale timeline is served after a failed reload before the next reload attempt
+ * @param refreshConcurrency maximum number of cached ranges reloaded at the same time by the scheduled refresh
+ */
+@ConfigurationProperties(prefix = "generation.cache")
+public record GenerationCacheProperties(
+        @DefaultValue("PT35M") Duration ttl,
+        @DefaultValue("PT2H") Duration expireAfterAccess,
+        @DefaultValue("64") int maxEntries,
+        @DefaultValue("PT6H") Duration maxStale,
+        @DefaultValue("PT1M") Duration staleRetryInterval,
+        @DefaultValue("4") int refreshConcurrency
+) {}
@@ -0,0 +1,35 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of upstream generation fetches.
+ *
+ * @param maxChunk       longest range requested from the upstream API in a single call
+ * @param maxConcurrency maximum number of chunks of one range, and of regions, fetched at the same time
+ * @param hedge          settings of hedged upstream calls
+ */
+@ConfigurationProperties(prefix = "generation.fetch")
+public record GenerationFetchProperties(
+        @DefaultValue("P7D") Duration maxChunk,
+        @DefaultValue("4") int maxConcurrency,
+        @DefaultValue Hedge hedge
+) {
+
+    /**
+     * Settings of hedged upstream calls. A hedged call sends a second identical request when the first one
+     * has not answered within the given percentile of recent upstream latencies, and uses whichever answers first.
+     *
+     * @param enabled    whether slow upstream calls are hedged
+     * @param percentile latency percentile of recent calls after which the second request is sent
+     * @param minDelay   shortest time to wait before sending the second request
+     */
+    public record Hedge(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("0.95") double percentile,
+            @DefaultValue("200ms") Duration minDelay
+    ) {}
+}
@@ -0,0 +1,25 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Settings of the local generation history store.
+ *
+ * @param enabled          whether fetched intervals are kept in the local store
+ * @param file             path of the memory-mapped store file
+ * @param initialCapacity  number of intervals the file is sized for when it is created
+ * @param fuels            fuels the file stores a column for when it is created; an existing file keeps
+ *                         the fuels it was created with and values of any other fuel are dropped
+ */
+@ConfigurationProperties(prefix = "generation.history")
+public record GenerationHistoryProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/generation-history.bin") Path file,
+        @DefaultValue("17520") int initialCapacity,
+        @DefaultValue({"biomass", "coal", "imports", "gas", "nuclear", "other", "hydro", "solar", "wind"})
+        List<String> fuels
+) {}
@@ -0,0 +1,16 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the forecast update stream.
+ *
+ * @param timeout how long a subscription stays open before the server closes it and the client reconnects
+ */
+@ConfigurationProperties(prefix = "generation.stream")
+public record GenerationStreamProperties(
+        @DefaultValue("PT30M") Duration timeout
+) {}
@@ -0,0 +1,25 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Settings of the HTTP transport used by the Carbon Intensity client.
+ *
+ * @param enabled        whether the client uses the pooled JDK HttpClient instead of Feign's default HttpURLConnection
+ * @param httpVersion    preferred HTTP version, HTTP/2 falls back to HTTP/1.1 when the server does not support it
+ * @param connectTimeout longest time to wait for a connection to be established
+ * @param readTimeout    longest time to wait for a response
+ * @param gzip           whether gzip-compressed responses are requested and decompressed while they are streamed
+ */
+@ConfigurationProperties(prefix = "generation.transport")
+public record GenerationTransportProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("HTTP_2") HttpClient.Version httpVersion,
+        @DefaultValue("PT2S") Duration connectTimeout,
+        @DefaultValue("PT5S") Duration readTimeout,
+        @DefaultValue("true") boolean gzip
+) {}
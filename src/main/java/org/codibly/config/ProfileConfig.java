@@ -0,0 +1,9 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FuelProfileProperties.class)
+public class ProfileConfig {
+}
@@ -0,0 +1,9 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(GenerationStreamProperties.class)
+public class StreamConfig {
+}
@@ -0,0 +1,16 @@
+package org.codibly.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the virtual-thread instrumentation.
+ *
+ * @param pinnedThreshold shortest time a virtual thread has to stay pinned to its carrier thread to be reported
+ */
+@ConfigurationProperties(prefix = "generation.virtual-threads")
+public record VirtualThreadProperties(
+        @DefaultValue("20ms") Duration pinnedThreshold
+) {}
@@ -0,0 +1,149 @@
+package org.codibly.controller;
+
+import org.codibly.dto.request.ChargingWindowBatchRequest;
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.request.FleetScheduleRequest;
+import org.codibly.dto.response.ChargingWindowBatchItemResponse;
+import org.codibly.dto.response.FleetScheduleResponse;
+import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.service.DataVersion;
+import org.codibly.service.GenerationResponseRenderer;
+import org.codibly.service.GenerationService;
+import org.codibly.service.Versioned;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variant of {@link GenerationController}, enabled with {@code generation.api.execution-mode=async}.
+ * Conditional requests for data that is already cached are answered on the servlet thread; everything that may
+ * load data, including the version lookup of data that is not cached yet, runs on the upstream virtual-thread
+ * executor, so requests waiting on a slow upstream no longer hold on to the container's thread pool.
+ * The responses are the same as in the blocking mode.
+ */
+@RestController
+@RequestMapping("api/v1/")
+@ConditionalOnProperty(prefix = "generation.api", name = "execution-mode", havingValue = "async")
+public class AsyncGenerationController {
+
+    private final GenerationService generationService;
+
+    private final GenerationResponseRenderer responseRenderer;
+
+    private final ConditionalResponses conditionalResponses;
+
+    private final ExecutorService executor;
+
+    public AsyncGenerationController(GenerationService generationService,
+                                     GenerationResponseRenderer responseRenderer,
+                                     ConditionalResponses conditionalResponses,
+                                     @Qualifier("upstreamExecutor") ExecutorService executor) {
+        this.generationService = generationService;
+        this.responseRenderer = responseRenderer;
+        this.conditionalResponses = conditionalResponses;
+        this.executor = executor;
+    }
+
+    @GetMapping("generation/three-days")
+    public CompletableFuture<ResponseEntity<byte[]>> getThreeDaysGeneration(
+            @RequestParam(value = "profiles", required = false) List<String> profiles,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        boolean gzip = ConditionalResponses.acceptsGzip(acceptEncoding);
+        DataVersion cachedVersion = generationService.getCachedThreeDaysVersion();
+        return conditionally(webRequest,
+                cachedVersion == null ? null : ConditionalResponses.threeDaysVersion(cachedVersion, gzip),
+                () -> ConditionalResponses.threeDaysVersion(generationService.getThreeDaysVersion(), gzip),
+                version -> conditionalResponses.threeDaysResponse(responseRenderer.renderThreeDays(version, profiles), gzip));
+    }
+
+    @GetMapping("charge-window")
+    public CompletableFuture<ResponseEntity<OptimalChargingWindowResponse>> getOptimalChargingWindow(
+            @RequestParam("hours") int hours,
+            @RequestParam(value = "earliestStart", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime earliestStart,
+            @RequestParam(value = "deadline", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime deadline,
+            @RequestParam(value = "profiles", required = false) List<String> profiles,
+            WebRequest webRequest) {
+        return conditionally(webRequest, generationService.getCachedChargingWindowVersion(hours),
+                () -> generationService.getChargingWindowVersion(hours),
+                version -> versionedResponse(generationService.findVersionedOptimalChargingWindow(
+                        new ChargingWindowRequest(hours, earliestStart, deadline), profiles)));
+    }
+
+    @GetMapping("charge-window/top")
+    public CompletableFuture<ResponseEntity<List<OptimalChargingWindowResponse>>> getTopChargingWindows(
+            @RequestParam("hours") int hours,
+            @RequestParam(value = "count", defaultValue = "3") int count,
+            @RequestParam(value = "allowOverlap", defaultValue = "false") boolean allowOverlap,
+            @RequestParam(value = "profiles", required = false) List<String> profiles,
+            WebRequest webRequest) {
+        return conditionally(webRequest, generationService.getCachedChargingWindowVersion(hours),
+                () -> generationService.getChargingWindowVersion(hours),
+                version -> versionedResponse(generationService.findVersionedTopChargingWindows(
+                        hours, count, allowOverlap, profiles)));
+    }
+
+    /**
+     * Answers a conditional request on the servlet thread when the version of the data is cached. Otherwise the
+     * version is loaded and the request evaluated on the executor, so the servlet thread never waits on the upstream.
+     *
+     * @param webRequest    current request
+     * @param cachedVersion version of the data if it is cached, or null if it must be loaded first
+     * @param version       loads the version of the data
+     * @param response      builds the full response from the version the request was evaluated against
+     * @return future of a 304 response if the client holds the version, otherwise of the full response
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> conditionally(WebRequest webRequest, DataVersion cachedVersion,
+                                                                   Supplier<DataVersion> version,
+                                                                   Function<DataVersion, ResponseEntity<T>> response) {
+        if (cachedVersion != null) {
+            if (conditionalResponses.isNotModified(webRequest, cachedVersion)) {
+                return CompletableFuture.completedFuture(
+                        conditionalResponses.conditionalResponse(HttpStatus.NOT_MODIFIED, cachedVersion).build());
+            }
+            return CompletableFuture.supplyAsync(() -> response.apply(cachedVersion), executor);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            DataVersion loaded = version.get();
+            if (conditionalResponses.isNotModified(webRequest, loaded)) {
+                return conditionalResponses.conditionalResponse(HttpStatus.NOT_MODIFIED, loaded).<T>build();
+            }
+            return response.apply(loaded);
+        }, executor);
+    }
+
+    private <T> ResponseEntity<T> versionedResponse(Versioned<T> response) {
+        return conditionalResponses.conditionalResponse(HttpStatus.OK, response.version())
+                .body(response.value());
+    }
+
+    @PostMapping("charge-window/batch")
+    public CompletableFuture<ResponseEntity<List<ChargingWindowBatchItemResponse>>> getOptimalChargingWindows(
+            @RequestBody ChargingWindowBatchRequest request) {
+        return CompletableFuture.supplyAsync(
+                        () -> generationService.findOptimalChargingWindows(request.requests()), executor)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.OK).body(response));
+    }
+
+    @PostMapping("fleet/schedule")
+    public CompletableFuture<ResponseEntity<FleetScheduleResponse>> scheduleFleetCharging(
+            @RequestBody FleetScheduleRequest request) {
+        return CompletableFuture.supplyAsync(
+                        () -> generationService.scheduleFleetCharging(request), executor)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.OK).body(response));
+    }
+}
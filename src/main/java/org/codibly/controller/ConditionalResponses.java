@@ -0,0 +1,149 @@
+package org.codibly.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.codibly.service.DataVersion;
+import org.codibly.service.GenerationService;
+import org.codibly.service.RenderedResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Conditional request handling and response headers shared by the blocking and the asynchronous controllers.
+ * Responses carry the validators of the data version they were built from and may be cached until the next
+ * data refresh; the three-day averages are written gzip-compressed when the client accepts it.
+ */
+@Component
+public class ConditionalResponses {
+
+    static final String STALE_HEADER = "X-Data-Stale";
+
+    private static final String GZIP = "gzip";
+
+    private final GenerationService generationService;
+
+    public ConditionalResponses(GenerationService generationService) {
+        this.generationService = generationService;
+    }
+
+    /**
+     * Evaluates the conditional headers of the request against a data version without writing the validators
+     * to the response, so the response can still carry the validators of a newer version.
+     *
+     * @param webRequest current request
+     * @param version    version of the data the response would be built from
+     * @return whether the client already holds the version
+     */
+    public boolean isNotModified(WebRequest webRequest, DataVersion version) {
+        HttpServletRequest request = ((NativeWebRequest) webRequest).getNativeRequest(HttpServletRequest.class);
+        return new ServletWebRequest(request).checkNotModified(version.etag(), version.lastModified().toEpochMilli());
+    }
+
+    /**
+     * Starts a response carrying the validators of the data version, cacheable until the next data refresh.
+     * Stale data is marked with a header and must be revalidated by clients on every use.
+     *
+     * @param status  status of the response
+     * @param version version of the data in the response
+     * @return response builder with the validators and cache headers set
+     */
+    public ResponseEntity.BodyBuilder conditionalResponse(HttpStatus status, DataVersion version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(status)
+                .eTag(version.etag())
+                .lastModified(version.lastModified());
+        if (version.stale()) {
+            return response
+                    .cacheControl(CacheControl.noCache())
+                    .header(STALE_HEADER, "true");
+        }
+        return response
+                .cacheControl(CacheControl.maxAge(generationService.getTimeUntilRefresh()));
+    }
+
+    /**
+     * The gzip-compressed and the JSON bodies of the three-day averages are different representations,
+     * so each gets its own strong entity tag and a conditional request only matches the one it was served.
+     *
+     * @param version version of the data behind the three-day averages
+     * @param gzip    whether the client accepts a gzip-compressed body
+     * @return version labelling the representation written to the client
+     */
+    public static DataVersion threeDaysVersion(DataVersion version, boolean gzip) {
+        return gzip ? version.withEncoding(GZIP) : version;
+    }
+
+    /**
+     * Writes pre-rendered three-day averages with the validators of the version they were rendered from
+     * and the entity tag of the representation written.
+     *
+     * @param rendered serialized three-day averages
+     * @param gzip     whether the client accepts a gzip-compressed body
+     * @return response with the JSON or the gzip-compressed body
+     */
+    public ResponseEntity<byte[]> threeDaysResponse(RenderedResponse rendered, boolean gzip) {
+        ResponseEntity.BodyBuilder response = conditionalResponse(HttpStatus.OK, threeDaysVersion(rendered.version(), gzip))
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response
+                    .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                    .body(rendered.gzip());
+        }
+        return response
+                .body(rendered.json());
+    }
+
+    /**
+     * Checks whether an {@code Accept-Encoding} header allows a gzip-compressed response:
+     * {@code gzip} (or its alias {@code x-gzip}) is listed with a non-zero quality value,
+     * or it is not listed and the {@code *} wildcard is.
+     *
+     * @param acceptEncoding value of the header, or null if the request has none
+     * @return whether the response may be gzip-compressed
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            double quality = 1;
+            for (int p = 1; p < parts.length; p++) {
+                String parameter = parts[p].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    quality = parseQuality(parameter.substring(2).trim());
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    /**
+     * @return quality value of a header element, or 0 if it is malformed so the coding is not used
+     */
+    private static double parseQuality(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
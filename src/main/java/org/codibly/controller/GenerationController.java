@@ -1,36 +1,127 @@
 package org.codibly.controller;
 
-import org.codibly.dto.response.DailyGenerationResponse;
+import org.codibly.dto.request.ChargingWindowBatchRequest;
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.request.FleetScheduleRequest;
+import org.codibly.dto.response.ChargingWindowBatchItemResponse;
+import org.codibly.dto.response.FleetScheduleResponse;
 import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.service.DataVersion;
+import org.codibly.service.GenerationResponseRenderer;
 import org.codibly.service.GenerationService;
+import org.codibly.service.RenderedResponse;
+import org.codibly.service.Versioned;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("api/v1/")
+@ConditionalOnProperty(prefix = "generation.api", name = "execution-mode", havingValue = "blocking", matchIfMissing = true)
 public class GenerationController {
 
     private final GenerationService generationService;
 
-    public GenerationController(GenerationService generationService) {
+    private final GenerationResponseRenderer responseRenderer;
+
+    private final ConditionalResponses conditionalResponses;
+
+    public GenerationController(GenerationService generationService, GenerationResponseRenderer responseRenderer,
+                                ConditionalResponses conditionalResponses) {
         this.generationService = generationService;
+        this.responseRenderer = responseRenderer;
+        this.conditionalResponses = conditionalResponses;
     }
 
+    /**
+     * Writes the three-day averages pre-rendered for the current data version,
+     * gzip-compressed when the client accepts it. The shares of the requested fuel profiles are added to every day.
+     * The validators of a full response are those of the rendered bytes, so a refresh between the version check
+     * and rendering cannot label new data with the previous version. The gzip-compressed and the JSON body
+     * have different entity tags.
+     */
     @GetMapping("generation/three-days")
-    public ResponseEntity<List<DailyGenerationResponse>> getThreeDaysGeneration() {
-        List<DailyGenerationResponse> result = generationService.getThreeDaysAverage();
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(result);
+    public ResponseEntity<byte[]> getThreeDaysGeneration(
+            @RequestParam(value = "profiles", required = false) List<String> profiles,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        boolean gzip = ConditionalResponses.acceptsGzip(acceptEncoding);
+        DataVersion version = ConditionalResponses.threeDaysVersion(generationService.getThreeDaysVersion(), gzip);
+        if (conditionalResponses.isNotModified(webRequest, version)) {
+            return conditionalResponses.conditionalResponse(HttpStatus.NOT_MODIFIED, version).build();
+        }
+        RenderedResponse rendered = responseRenderer.renderThreeDays(version, profiles);
+        return conditionalResponses.threeDaysResponse(rendered, gzip);
     }
 
+    /**
+     * Returns the best window of the given length, optionally limited to windows that start
+     * no earlier than {@code earliestStart} and end no later than {@code deadline}.
+     * The validators of a full response are those of the window index the body was read from.
+     */
     @GetMapping("charge-window")
     public ResponseEntity<OptimalChargingWindowResponse> getOptimalChargingWindow(
-            @RequestParam("hours") int hours) {
-        OptimalChargingWindowResponse response = generationService.findOptimalChargingWindow(hours);
+            @RequestParam("hours") int hours,
+            @RequestParam(value = "earliestStart", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime earliestStart,
+            @RequestParam(value = "deadline", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime deadline,
+            @RequestParam(value = "profiles", required = false) List<String> profiles,
+            WebRequest webRequest) {
+        DataVersion version = generationService.getChargingWindowVersion(hours);
+        if (conditionalResponses.isNotModified(webRequest, version)) {
+            return conditionalResponses.conditionalResponse(HttpStatus.NOT_MODIFIED, version).build();
+        }
+        Versioned<OptimalChargingWindowResponse> response = generationService.findVersionedOptimalChargingWindow(
+                new ChargingWindowRequest(hours, earliestStart, deadline), profiles);
+        return conditionalResponses.conditionalResponse(HttpStatus.OK, response.version())
+                .body(response.value());
+    }
+
+    /**
+     * Returns up to {@code count} of the best windows of the given length, best first.
+     * Windows do not overlap unless {@code allowOverlap} is set.
+     */
+    @GetMapping("charge-window/top")
+    public ResponseEntity<List<OptimalChargingWindowResponse>> getTopChargingWindows(
+            @RequestParam("hours") int hours,
+            @RequestParam(value = "count", defaultValue = "3") int count,
+            @RequestParam(value = "allowOverlap", defaultValue = "false") boolean allowOverlap,
+            @RequestParam(value = "profiles", required = false) List<String> profiles,
+            WebRequest webRequest) {
+        DataVersion version = generationService.getChargingWindowVersion(hours);
+        if (conditionalResponses.isNotModified(webRequest, version)) {
+            return conditionalResponses.conditionalResponse(HttpStatus.NOT_MODIFIED, version).build();
+        }
+        Versioned<List<OptimalChargingWindowResponse>> response =
+                generationService.findVersionedTopChargingWindows(hours, count, allowOverlap, profiles);
+        return conditionalResponses.conditionalResponse(HttpStatus.OK, response.version())
+                .body(response.value());
+    }
+
+    /**
+     * Returns the optimal window of every request of the batch, or an error entry for a request
+     * whose window does not fit between its bounds.
+     */
+    @PostMapping("charge-window/batch")
+    public ResponseEntity<List<ChargingWindowBatchItemResponse>> getOptimalChargingWindows(
+            @RequestBody ChargingWindowBatchRequest request) {
+        List<ChargingWindowBatchItemResponse> response = generationService.findOptimalChargingWindows(request.requests());
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(response);
+    }
+
+    @PostMapping("fleet/schedule")
+    public ResponseEntity<FleetScheduleResponse> scheduleFleetCharging(@RequestBody FleetScheduleRequest request) {
+        FleetScheduleResponse response = generationService.scheduleFleetCharging(request);
         return ResponseEntity
                 .status(HttpStatus.OK)
                 .body(response);
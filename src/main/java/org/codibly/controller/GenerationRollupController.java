@@ -0,0 +1,39 @@
+package org.codibly.controller;
+
+import org.codibly.dto.response.GenerationRollupResponse;
+import org.codibly.service.GenerationRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Averages of the national generation data per hour, day, week or month over ranges of any length,
+ * read from the pre-aggregated rollups.
+ */
+@RestController
+@RequestMapping("api/v1/")
+public class GenerationRollupController {
+
+    private final GenerationRollupService rollupService;
+
+    public GenerationRollupController(GenerationRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @GetMapping("generation/rollup")
+    public ResponseEntity<GenerationRollupResponse> getRollup(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(value = "resolution", required = false) String resolution) {
+        GenerationRollupResponse response = rollupService.getRollup(from, to, resolution);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(response);
+    }
+}
@@ -0,0 +1,29 @@
+package org.codibly.controller;
+
+import org.codibly.service.GenerationUpdateBroadcaster;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events stream of forecast updates. Subscribers receive the three-day averages and the best
+ * charging window of every length on connecting and again whenever a refresh brings new data,
+ * instead of polling the generation endpoints.
+ */
+@RestController
+@RequestMapping("api/v1/")
+public class GenerationStreamController {
+
+    private final GenerationUpdateBroadcaster updateBroadcaster;
+
+    public GenerationStreamController(GenerationUpdateBroadcaster updateBroadcaster) {
+        this.updateBroadcaster = updateBroadcaster;
+    }
+
+    @GetMapping(value = "generation/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUpdates() {
+        return updateBroadcaster.subscribe();
+    }
+}
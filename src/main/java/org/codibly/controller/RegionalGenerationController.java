@@ -0,0 +1,49 @@
+package org.codibly.controller;
+
+import org.codibly.dto.response.RegionalChargingWindowResponse;
+import org.codibly.dto.response.RegionalGenerationResponse;
+import org.codibly.service.RegionalGenerationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Regional variants of the generation endpoints. Regions are selected with a comma-separated
+ * {@code regionIds} parameter holding Carbon Intensity API region ids; all regions are returned without it.
+ * The regions are fanned out in parallel, so the servlet thread is released until all of them are ready.
+ */
+@RestController
+@RequestMapping("api/v1/regions/")
+public class RegionalGenerationController {
+
+    private final RegionalGenerationService regionalGenerationService;
+
+    public RegionalGenerationController(RegionalGenerationService regionalGenerationService) {
+        this.regionalGenerationService = regionalGenerationService;
+    }
+
+    @GetMapping("generation/three-days")
+    public CompletableFuture<ResponseEntity<List<RegionalGenerationResponse>>> getThreeDaysGeneration(
+            @RequestParam(value = "regionIds", required = false) List<Integer> regionIds) {
+        return regionalGenerationService.getThreeDaysAverage(regionIds)
+                .thenApply(response -> ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(response));
+    }
+
+    @GetMapping("charge-window")
+    public CompletableFuture<ResponseEntity<List<RegionalChargingWindowResponse>>> getOptimalChargingWindow(
+            @RequestParam("hours") int hours,
+            @RequestParam(value = "regionIds", required = false) List<Integer> regionIds) {
+        return regionalGenerationService.findOptimalChargingWindow(hours, regionIds)
+                .thenApply(response -> ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(response));
+    }
+}
@@ -0,0 +1,7 @@
+package org.codibly.dto.request;
+
+import java.util.List;
+
+public record ChargingWindowBatchRequest(
+        List<ChargingWindowRequest> requests
+) {}
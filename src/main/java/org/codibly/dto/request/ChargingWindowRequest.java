@@ -0,0 +1,9 @@
+package org.codibly.dto.request;
+
+import java.time.ZonedDateTime;
+
+public record ChargingWindowRequest(
+        int hours,
+        ZonedDateTime earliestStart,
+        ZonedDateTime deadline
+) {}
@@ -0,0 +1,8 @@
+package org.codibly.dto.request;
+
+import java.util.List;
+
+public record FleetScheduleRequest(
+        double siteCapacityKw,
+        List<VehicleChargingRequest> vehicles
+) {}
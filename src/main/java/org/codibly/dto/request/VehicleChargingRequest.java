@@ -0,0 +1,11 @@
+package org.codibly.dto.request;
+
+import java.time.ZonedDateTime;
+
+public record VehicleChargingRequest(
+        String vehicleId,
+        double energyKwh,
+        double maxChargeRateKw,
+        ZonedDateTime availableFrom,
+        ZonedDateTime deadline
+) {}
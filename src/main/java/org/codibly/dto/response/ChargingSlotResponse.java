@@ -0,0 +1,9 @@
+package org.codibly.dto.response;
+
+import java.time.ZonedDateTime;
+
+public record ChargingSlotResponse(
+        ZonedDateTime start,
+        ZonedDateTime end,
+        double powerKw
+) {}
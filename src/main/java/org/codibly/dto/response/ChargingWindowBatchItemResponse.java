@@ -0,0 +1,24 @@
+package org.codibly.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Result of one request of a charging window batch: either the optimal window or the reason none was found.
+ *
+ * @param window optimal window of the request, or null if none was found
+ * @param error  why no window was found, or null if the request has a window
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChargingWindowBatchItemResponse(
+        OptimalChargingWindowResponse window,
+        String error
+) {
+
+    public static ChargingWindowBatchItemResponse of(OptimalChargingWindowResponse window) {
+        return new ChargingWindowBatchItemResponse(window, null);
+    }
+
+    public static ChargingWindowBatchItemResponse failed(String error) {
+        return new ChargingWindowBatchItemResponse(null, error);
+    }
+}
@@ -1,9 +1,17 @@
 package org.codibly.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Map;
 
 public record DailyGenerationResponse(
         String date,
         Map<String, Double> energyMix,
-        double cleanEnergyPerc
-) {}
+        double cleanEnergyPerc,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, Double> profileShares
+) {
+
+    public DailyGenerationResponse(String date, Map<String, Double> energyMix, double cleanEnergyPerc) {
+        this(date, energyMix, cleanEnergyPerc, Map.of());
+    }
+}
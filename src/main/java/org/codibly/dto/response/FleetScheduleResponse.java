@@ -0,0 +1,9 @@
+package org.codibly.dto.response;
+
+import java.util.List;
+
+public record FleetScheduleResponse(
+        double energyKwh,
+        double cleanEnergyPercentage,
+        List<VehicleScheduleResponse> vehicles
+) {}
@@ -0,0 +1,10 @@
+package org.codibly.dto.response;
+
+import org.codibly.model.RollupResolution;
+
+import java.util.List;
+
+public record GenerationRollupResponse(
+        RollupResolution resolution,
+        List<RollupBucketResponse> buckets
+) {}
@@ -0,0 +1,9 @@
+package org.codibly.dto.response;
+
+import java.util.List;
+import java.util.Map;
+
+public record GenerationUpdateResponse(
+        List<DailyGenerationResponse> threeDays,
+        Map<Integer, OptimalChargingWindowResponse> chargeWindows
+) {}
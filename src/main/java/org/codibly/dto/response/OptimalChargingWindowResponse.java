@@ -1,12 +1,20 @@
 package org.codibly.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 
 import java.time.ZonedDateTime;
+import java.util.Map;
 
 @Builder
 public record OptimalChargingWindowResponse(
         ZonedDateTime start,
         ZonedDateTime end,
-        double averageCleanEnergyPercentage
-) {}
+        double averageCleanEnergyPercentage,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, Double> profileShares
+) {
+
+    public OptimalChargingWindowResponse(ZonedDateTime start, ZonedDateTime end, double averageCleanEnergyPercentage) {
+        this(start, end, averageCleanEnergyPercentage, Map.of());
+    }
+}
@@ -0,0 +1,7 @@
+package org.codibly.dto.response;
+
+public record RegionalChargingWindowResponse(
+        int regionId,
+        String region,
+        OptimalChargingWindowResponse window
+) {}
@@ -0,0 +1,9 @@
+package org.codibly.dto.response;
+
+import java.util.List;
+
+public record RegionalGenerationResponse(
+        int regionId,
+        String region,
+        List<DailyGenerationResponse> days
+) {}
@@ -0,0 +1,11 @@
+package org.codibly.dto.response;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+public record RollupBucketResponse(
+        ZonedDateTime start,
+        ZonedDateTime end,
+        Map<String, Double> energyMix,
+        double cleanEnergyPerc
+) {}
@@ -0,0 +1,10 @@
+package org.codibly.dto.response;
+
+import java.util.List;
+
+public record VehicleScheduleResponse(
+        String vehicleId,
+        double energyKwh,
+        double cleanEnergyPercentage,
+        List<ChargingSlotResponse> slots
+) {}
@@ -1,9 +1,14 @@
 package org.codibly.exception;
 
+import feign.FeignException;
 import org.springframework.web.client.RestClientException;
 
 public class GenerationProviderConnectionException extends RuntimeException {
     public GenerationProviderConnectionException(String message, RestClientException ex) {
         super(message, ex);
     }
+
+    public GenerationProviderConnectionException(String message, FeignException ex) {
+        super(message, ex);
+    }
 }
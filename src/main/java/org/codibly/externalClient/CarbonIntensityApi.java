@@ -0,0 +1,31 @@
+package org.codibly.externalClient;
+
+import feign.Response;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Generation endpoints of the Carbon Intensity API. The raw responses are decoded by {@link CarbonIntensityClient},
+ * which knows the range it requested; callers must close the response.
+ */
+@FeignClient(
+        name = "carbonIntensityClient",
+        url = "https://api.carbonintensity.org.uk",
+        configuration = org.codibly.config.FeignConfig.class
+)
+public interface CarbonIntensityApi {
+
+    @GetMapping("/generation/{from}/{to}")
+    Response getGenerationMix(
+            @PathVariable(value = "from") String from,
+            @PathVariable(value = "to") String to
+    );
+
+    @GetMapping("/regional/intensity/{from}/{to}/regionid/{regionId}")
+    Response getRegionalGenerationMix(
+            @PathVariable(value = "from") String from,
+            @PathVariable(value = "to") String to,
+            @PathVariable(value = "regionId") int regionId
+    );
+}
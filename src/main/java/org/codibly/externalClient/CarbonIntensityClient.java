@@ -1,20 +1,28 @@
 package org.codibly.externalClient;
 
-import org.codibly.dto.response.GenerationResponse;
-import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.codibly.model.GenerationTimeline;
 
-@FeignClient(
-        name = "carbonIntensityClient",
-        url = "https://api.carbonintensity.org.uk",
-        configuration = org.codibly.config.FeignConfig.class
-)
+/**
+ * Generation data of the Carbon Intensity API, decoded into timelines.
+ */
 public interface CarbonIntensityClient {
 
-    @GetMapping("/generation/{from}/{to}")
-    GenerationResponse getGenerationMix(
-            @PathVariable(value = "from") String from,
-            @PathVariable(value = "to") String to
-    );
+    /**
+     * Fetches the generation mix for the given range, keeping only entries within the range.
+     *
+     * @param from start of the range in the API format, e.g. 2025-01-01T00:00Z
+     * @param to   end of the range in the API format
+     * @return generation timeline of the range, or null if the API has no data for it
+     */
+    GenerationTimeline getGenerationMix(String from, String to);
+
+    /**
+     * Fetches the generation mix of a single region for the given range, keeping only entries within the range.
+     *
+     * @param from     start of the range in the API format, e.g. 2025-01-01T00:00Z
+     * @param to       end of the range in the API format
+     * @param regionId id of the region
+     * @return generation timeline of the region, or null if the API has no data for it
+     */
+    GenerationTimeline getRegionalGenerationMix(String from, String to, int regionId);
 }
@@ -0,0 +1,46 @@
+package org.codibly.externalClient;
+
+import feign.FeignException;
+import feign.Response;
+import org.codibly.model.GenerationTimeline;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calls the Carbon Intensity API through Feign and stream-decodes the responses,
+ * passing the range of every call to the decoder.
+ */
+@Component
+public class FeignCarbonIntensityClient implements CarbonIntensityClient {
+
+    private final CarbonIntensityApi carbonIntensityApi;
+
+    private final GenerationTimelineDecoder decoder;
+
+    public FeignCarbonIntensityClient(CarbonIntensityApi carbonIntensityApi, GenerationTimelineDecoder decoder) {
+        this.carbonIntensityApi = carbonIntensityApi;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public GenerationTimeline getGenerationMix(String from, String to) {
+        try (Response response = carbonIntensityApi.getGenerationMix(from, to)) {
+            return decode(response, from, to);
+        }
+    }
+
+    @Override
+    public GenerationTimeline getRegionalGenerationMix(String from, String to, int regionId) {
+        try (Response response = carbonIntensityApi.getRegionalGenerationMix(from, to, regionId)) {
+            return decode(response, from, to);
+        }
+    }
+
+    /**
+     * @throws FeignException if the API answers with an error status
+     */
+    private GenerationTimeline decode(Response response, String from, String to) {
+        return decoder.decode(response,
+                GenerationTimelineDecoder.parseTimestamp(from.toCharArray(), 0, from.length()),
+                GenerationTimelineDecoder.parseTimestamp(to.toCharArray(), 0, to.length()));
+    }
+}
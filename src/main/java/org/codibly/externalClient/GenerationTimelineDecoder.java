@@ -0,0 +1,220 @@
+package org.codibly.externalClient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import feign.FeignException;
+import feign.Response;
+import feign.codec.DecodeException;
+import org.codibly.model.GenerationTimeline;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Stream-parses the generation payload of the Carbon Intensity API straight into a {@link GenerationTimeline}.
+ * Entries outside the requested range are skipped while parsing, so they are never materialized.
+ */
+public class GenerationTimelineDecoder {
+
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final JsonFactory jsonFactory;
+
+    public GenerationTimelineDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Decodes a generation response, keeping the entries that lie fully within the requested range.
+     *
+     * @param response  response of the national or regional generation endpoint
+     * @param rangeFrom start of the requested range in epoch seconds (inclusive)
+     * @param rangeTo   end of the requested range in epoch seconds (exclusive)
+     * @return generation timeline of the range, or null if the API has no data for it
+     * @throws FeignException if the API answers with an error status or the payload cannot be decoded
+     */
+    public GenerationTimeline decode(Response response, long rangeFrom, long rangeTo) {
+        if (response.status() == 404 || response.status() == 204 || response.body() == null) {
+            return null;
+        }
+        if (response.status() < 200 || response.status() >= 300) {
+            throw FeignException.errorStatus("CarbonIntensityApi", response);
+        }
+
+        try (JsonParser parser = jsonFactory.createParser(response.body().asInputStream())) {
+            return readTimeline(parser, rangeFrom, rangeTo);
+        } catch (IOException | RuntimeException ex) {
+            throw new DecodeException(response.status(), "Failed to decode generation payload: " + ex.getMessage(),
+                    response.request(), ex);
+        }
+    }
+
+    private GenerationTimeline readTimeline(JsonParser parser, long rangeFrom, long rangeTo) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        readData(parser, builder, new EntryReader(), rangeFrom, rangeTo);
+        return builder.build();
+    }
+
+    /**
+     * Reads the entries of the "data" array of the current object. In regional payloads "data" is an object
+     * describing the region, which holds the entries in its own "data" array.
+     */
+    private void readData(JsonParser parser, GenerationTimeline.Builder builder, EntryReader entryReader,
+                          long rangeFrom, long rangeTo) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    entryReader.read(parser);
+                    entryReader.appendIfWithin(builder, rangeFrom, rangeTo);
+                }
+            } else if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                readData(parser, builder, entryReader, rangeFrom, rangeTo);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Parses a timestamp such as 2025-01-01T00:30Z into epoch seconds without creating intermediate strings.
+     * Other ISO-8601 forms fall back to {@link ZonedDateTime#parse(CharSequence)}.
+     */
+    static long parseTimestamp(char[] chars, int offset, int length) {
+        if (length == 17 && chars[offset + 4] == '-' && chars[offset + 7] == '-' && chars[offset + 10] == 'T'
+                && chars[offset + 13] == ':' && chars[offset + 16] == 'Z') {
+            int year = digits(chars, offset, 4);
+            int month = digits(chars, offset + 5, 2);
+            int day = digits(chars, offset + 8, 2);
+            int hour = digits(chars, offset + 11, 2);
+            int minute = digits(chars, offset + 14, 2);
+            return LocalDate.of(year, month, day).toEpochDay() * SECONDS_PER_DAY
+                    + (hour * 60L + minute) * SECONDS_PER_MINUTE;
+        }
+        return ZonedDateTime.parse(new String(chars, offset, length)).toEpochSecond();
+    }
+
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid timestamp");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Reusable buffer for a single generation entry. The fuel mix is held until the whole entry is read,
+     * because the range check needs both interval boundaries.
+     */
+    private static final class EntryReader {
+
+        private String[] knownFuels = new String[0];
+
+        private String[] fuels = new String[16];
+
+        private double[] percentages = new double[16];
+
+        private int fuelCount;
+
+        private long from;
+
+        private long to;
+
+        private void read(JsonParser parser) throws IOException {
+            from = Long.MIN_VALUE;
+            to = Long.MIN_VALUE;
+            fuelCount = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("from".equals(field) && value == JsonToken.VALUE_STRING) {
+                    from = parseTimestamp(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else if ("to".equals(field) && value == JsonToken.VALUE_STRING) {
+                    to = parseTimestamp(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else if ("generationmix".equals(field) && value == JsonToken.START_ARRAY) {
+                    readGenerationMix(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readGenerationMix(JsonParser parser) throws IOException {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String fuel = null;
+                double perc = Double.NaN;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if ("fuel".equals(field) && value == JsonToken.VALUE_STRING) {
+                        fuel = fuelName(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else if ("perc".equals(field) && value.isNumeric()) {
+                        perc = parser.getDoubleValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (fuel != null && !Double.isNaN(perc)) {
+                    add(fuel, perc);
+                }
+            }
+        }
+
+        private void add(String fuel, double perc) {
+            if (fuelCount == fuels.length) {
+                fuels = Arrays.copyOf(fuels, fuelCount * 2);
+                percentages = Arrays.copyOf(percentages, fuelCount * 2);
+            }
+            fuels[fuelCount] = fuel;
+            percentages[fuelCount] = perc;
+            fuelCount++;
+        }
+
+        private void appendIfWithin(GenerationTimeline.Builder builder, long rangeFrom, long rangeTo) {
+            if (from == Long.MIN_VALUE || to == Long.MIN_VALUE || from < rangeFrom || to > rangeTo) {
+                return;
+            }
+            builder.interval(from, to);
+            for (int i = 0; i < fuelCount; i++) {
+                builder.percentage(fuels[i], percentages[i]);
+            }
+        }
+
+        /**
+         * Returns the fuel name for the given characters, reusing the string of a fuel seen before.
+         */
+        private String fuelName(char[] chars, int offset, int length) {
+            for (String known : knownFuels) {
+                if (known.length() == length && matches(known, chars, offset)) {
+                    return known;
+                }
+            }
+            String fuel = new String(chars, offset, length);
+            knownFuels = Arrays.copyOf(knownFuels, knownFuels.length + 1);
+            knownFuels[knownFuels.length - 1] = fuel;
+            return fuel;
+        }
+
+        private static boolean matches(String known, char[] chars, int offset) {
+            for (int i = 0; i < known.length(); i++) {
+                if (known.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package org.codibly.history;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.codibly.config.GenerationHistoryProperties;
+import org.codibly.model.GenerationTimeline;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only local store of generation intervals, kept in a memory-mapped file that survives restarts.
+ * <p>
+ * The file starts with a header holding the record count and the fuel names, followed by fixed-width
+ * records in chronological order: interval start and end in epoch seconds and one double per fuel
+ * (NaN when the fuel has no value). Records are located by binary search on their start time.
+ * A revised interval overwrites its record in place, new intervals are inserted in chronological order.
+ * The fuels are fixed when the file is created, values of other fuels are dropped with a warning.
+ * <p>
+ * Writes go to the mapped file straight away and are forced to disk on a schedule and on close,
+ * so a crash of the machine may lose the intervals stored since the last flush; they are fetched again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "generation.history", name = "enabled", havingValue = "true")
+public class GenerationHistoryStore implements Closeable {
+
+    private static final int MAGIC = 0x47484953;
+
+    private static final int VERSION = 1;
+
+    private static final int MAX_FUELS = 16;
+
+    private static final int FUEL_NAME_BYTES = 16;
+
+    private static final int RECORD_COUNT_OFFSET = 16;
+
+    private static final int HEADER_BYTES = 24 + MAX_FUELS * FUEL_NAME_BYTES;
+
+    private final FileChannel channel;
+
+    private final String[] fuels;
+
+    private final int recordBytes;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Set<String> droppedFuels = ConcurrentHashMap.newKeySet();
+
+    private MappedByteBuffer buffer;
+
+    private int recordCount;
+
+    private boolean dirty;
+
+    public GenerationHistoryStore(GenerationHistoryProperties properties) {
+        try {
+            Path file = properties.file().toAbsolutePath();
+            Files.createDirectories(file.getParent());
+            boolean created = Files.notExists(file) || Files.size(file) == 0;
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (created) {
+                this.fuels = validateFuels(properties.fuels());
+                this.recordBytes = recordBytes(fuels.length);
+                this.buffer = map((long) HEADER_BYTES + (long) properties.initialCapacity() * recordBytes);
+                writeHeader();
+            } else {
+                this.buffer = map(channel.size());
+                this.fuels = readHeader();
+                this.recordBytes = recordBytes(fuels.length);
+                this.recordCount = (int) buffer.getLong(RECORD_COUNT_OFFSET);
+                if (!List.of(fuels).equals(properties.fuels())) {
+                    log.warn("Generation history store {} keeps the fuels it was created with: {}",
+                            file, String.join(",", fuels));
+                }
+            }
+            log.info("Opened generation history store {} with {} intervals", file, recordCount);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open generation history store", ex);
+        }
+    }
+
+    /**
+     * Stores the intervals of a timeline. Intervals already in the store are overwritten with the new values,
+     * new intervals are appended or inserted into the gap they fill. An interval that overlaps a stored one
+     * without starting at the same time is skipped.
+     *
+     * @param timeline generation timeline in chronological order
+     * @return number of intervals written
+     */
+    public int append(GenerationTimeline timeline) {
+        int[] columns = new int[fuels.length];
+        for (int f = 0; f < fuels.length; f++) {
+            columns[f] = timeline.fuelIndex(fuels[f]);
+        }
+        warnAboutDroppedFuels(timeline);
+
+        lock.writeLock().lock();
+        try {
+            int written = 0;
+            for (int i = 0; i < timeline.size(); i++) {
+                long start = timeline.start(i);
+                int index = firstIndexAtOrAfter(start);
+                if (index >= recordCount || start(index) != start) {
+                    boolean overlapsPrevious = index > 0 && end(index - 1) > start;
+                    boolean overlapsNext = index < recordCount && start(index) < timeline.end(i);
+                    if (overlapsPrevious || overlapsNext) {
+                        continue;
+                    }
+                    insertRecord(index);
+                }
+                writeRecord(index, timeline, i, columns);
+                written++;
+            }
+            if (written > 0) {
+                buffer.putLong(RECORD_COUNT_OFFSET, recordCount);
+                dirty = true;
+            }
+            return written;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the intervals written since the last flush to disk.
+     */
+    @Scheduled(fixedDelayString = "${generation.history.flush-interval:PT1M}")
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            if (dirty) {
+                buffer.force();
+                dirty = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the intervals of a range if the store holds all of them without gaps.
+     *
+     * @param from start of the range in epoch seconds
+     * @param to   end of the range in epoch seconds
+     * @return timeline of the range, or empty if the store does not fully cover it
+     */
+    public Optional<GenerationTimeline> read(long from, long to) {
+        lock.readLock().lock();
+        try {
+            int first = firstIndexAtOrAfter(from);
+            if (first >= recordCount || start(first) != from) {
+                return Optional.empty();
+            }
+
+            long expectedStart = from;
+            int last = first;
+            for (; last < recordCount && end(last) <= to; last++) {
+                if (start(last) != expectedStart) {
+                    return Optional.empty();
+                }
+                expectedStart = end(last);
+            }
+            return expectedStart == to ? Optional.of(timeline(first, last)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads every interval in the store, including intervals separated by gaps.
+     *
+     * @return timeline of all stored intervals in chronological order
+     */
+    public GenerationTimeline readAll() {
+        lock.readLock().lock();
+        try {
+            return timeline(0, recordCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private GenerationTimeline timeline(int first, int last) {
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        int[] columns = new int[fuels.length];
+        for (int f = 0; f < fuels.length; f++) {
+            columns[f] = builder.fuelIndex(fuels[f]);
+        }
+        for (int index = first; index < last; index++) {
+            int offset = offset(index);
+            builder.interval(start(index), end(index));
+            for (int f = 0; f < fuels.length; f++) {
+                double perc = buffer.getDouble(offset + 16 + f * Double.BYTES);
+                if (!Double.isNaN(perc)) {
+                    builder.percentage(columns[f], perc);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return number of intervals in the store
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return recordCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close generation history store: {}", ex.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeRecord(int index, GenerationTimeline timeline, int interval, int[] columns) {
+        int offset = offset(index);
+        buffer.putLong(offset, timeline.start(interval));
+        buffer.putLong(offset + 8, timeline.end(interval));
+        for (int f = 0; f < columns.length; f++) {
+            double perc = columns[f] < 0 ? Double.NaN : timeline.percentage(columns[f], interval);
+            buffer.putDouble(offset + 16 + f * Double.BYTES, perc);
+        }
+    }
+
+    /**
+     * Makes room for a record at the index by moving the records from the index on by one record.
+     */
+    private void insertRecord(int index) {
+        ensureCapacity(recordCount + 1);
+        if (index < recordCount) {
+            byte[] tail = new byte[(recordCount - index) * recordBytes];
+            buffer.get(offset(index), tail);
+            buffer.put(offset(index + 1), tail);
+        }
+        recordCount++;
+    }
+
+    private void warnAboutDroppedFuels(GenerationTimeline timeline) {
+        for (int f = 0; f < timeline.fuelCount(); f++) {
+            String fuel = timeline.fuel(f);
+            if (!List.of(fuels).contains(fuel) && droppedFuels.add(fuel)) {
+                log.warn("Generation history store has no column for fuel {}, its values are not stored", fuel);
+            }
+        }
+    }
+
+    private int firstIndexAtOrAfter(long start) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start(mid) < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long start(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    private long end(int index) {
+        return buffer.getLong(offset(index) + 8);
+    }
+
+    private int offset(int index) {
+        return HEADER_BYTES + index * recordBytes;
+    }
+
+    private void ensureCapacity(int records) {
+        long required = (long) HEADER_BYTES + (long) records * recordBytes;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        buffer.force();
+        buffer = map(Math.max(required, (long) buffer.capacity() * 2));
+    }
+
+    private MappedByteBuffer map(long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to map generation history store", ex);
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, fuels.length);
+        buffer.putLong(RECORD_COUNT_OFFSET, 0);
+        for (int f = 0; f < fuels.length; f++) {
+            byte[] name = fuels[f].getBytes(StandardCharsets.US_ASCII);
+            buffer.put(24 + f * FUEL_NAME_BYTES, name, 0, Math.min(name.length, FUEL_NAME_BYTES));
+        }
+        buffer.force();
+    }
+
+    private String[] readHeader() throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a generation history store file");
+        }
+        int fuelCount = buffer.getInt(8);
+        String[] names = new String[fuelCount];
+        for (int f = 0; f < fuelCount; f++) {
+            byte[] name = new byte[FUEL_NAME_BYTES];
+            buffer.get(24 + f * FUEL_NAME_BYTES, name);
+            int length = 0;
+            while (length < name.length && name[length] != 0) {
+                length++;
+            }
+            names[f] = new String(name, 0, length, StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+
+    private static String[] validateFuels(List<String> fuels) {
+        if (fuels.isEmpty() || fuels.size() > MAX_FUELS) {
+            throw new IllegalArgumentException("Generation history store needs 1 to " + MAX_FUELS + " fuels");
+        }
+        for (String fuel : fuels) {
+            if (fuel.isEmpty() || fuel.getBytes(StandardCharsets.US_ASCII).length > FUEL_NAME_BYTES) {
+                throw new IllegalArgumentException("Invalid generation history fuel name: " + fuel);
+            }
+        }
+        return fuels.toArray(String[]::new);
+    }
+
+    private static int recordBytes(int fuelCount) {
+        return 2 * Long.BYTES + fuelCount * Double.BYTES;
+    }
+}
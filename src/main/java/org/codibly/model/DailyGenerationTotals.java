@@ -0,0 +1,231 @@
+package org.codibly.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable running totals of a generation timeline per UTC day: the sum of the percentages
+ * and the number of values of every fuel. Averages of any number of days are read from the totals
+ * without going over the intervals again.
+ * A new version of the timeline is applied with {@link #updated(GenerationTimeline, GenerationTimeline)},
+ * which only adjusts the days of intervals that were added, revised or removed. Unchanged days are
+ * shared with the previous totals.
+ */
+public final class DailyGenerationTotals {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private static final DailyGenerationTotals EMPTY = new DailyGenerationTotals(new String[0], new long[0], new Day[0]);
+
+    private final String[] fuels;
+
+    private final long[] epochDays;
+
+    private final Day[] days;
+
+    private DailyGenerationTotals(String[] fuels, long[] epochDays, Day[] days) {
+        this.fuels = fuels;
+        this.epochDays = epochDays;
+        this.days = days;
+    }
+
+    /**
+     * @param timeline generation timeline
+     * @return daily totals of the timeline
+     */
+    public static DailyGenerationTotals of(GenerationTimeline timeline) {
+        return EMPTY.updated(GenerationTimeline.empty(), timeline);
+    }
+
+    /**
+     * Applies the difference between two versions of a timeline to these totals.
+     * Intervals are matched by their start; an interval only in the previous version is subtracted,
+     * an interval only in the current one is added and an interval with different values is replaced.
+     *
+     * @param previous timeline these totals were calculated from
+     * @param current  new version of the timeline
+     * @return daily totals of the current timeline
+     */
+    public DailyGenerationTotals updated(GenerationTimeline previous, GenerationTimeline current) {
+        Update update = new Update(this);
+        int[] previousColumns = update.columns(previous);
+        int[] currentColumns = update.columns(current);
+
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < current.size()) {
+            long previousStart = i < previous.size() ? previous.start(i) : Long.MAX_VALUE;
+            long currentStart = j < current.size() ? current.start(j) : Long.MAX_VALUE;
+            if (previousStart == currentStart) {
+                if (!update.sameValues(previous, i, previousColumns, current, j, currentColumns)) {
+                    update.apply(previous, i, previousColumns, -1);
+                    update.apply(current, j, currentColumns, 1);
+                }
+                i++;
+                j++;
+            } else if (previousStart < currentStart) {
+                update.apply(previous, i, previousColumns, -1);
+                i++;
+            } else {
+                update.apply(current, j, currentColumns, 1);
+                j++;
+            }
+        }
+        return update.build();
+    }
+
+    /**
+     * @return number of days with at least one value
+     */
+    public int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * @param day index of the day, in chronological order
+     * @return epoch day of the day
+     */
+    public long epochDay(int day) {
+        return epochDays[day];
+    }
+
+    /**
+     * @return number of fuels seen in any interval
+     */
+    public int fuelCount() {
+        return fuels.length;
+    }
+
+    /**
+     * @param fuelIndex fuel column
+     * @return name of the fuel
+     */
+    public String fuel(int fuelIndex) {
+        return fuels[fuelIndex];
+    }
+
+    /**
+     * @param day       index of the day
+     * @param fuelIndex fuel column
+     * @return average percentage of the fuel on the day, or NaN if the fuel has no values that day
+     */
+    public double average(int day, int fuelIndex) {
+        Day totals = days[day];
+        if (fuelIndex >= totals.counts.length || totals.counts[fuelIndex] == 0) {
+            return Double.NaN;
+        }
+        return totals.sums[fuelIndex] / totals.counts[fuelIndex];
+    }
+
+    /**
+     * Totals of a single day. Columns of fuels first seen after the day was last changed are missing.
+     */
+    private record Day(double[] sums, int[] counts) {}
+
+    /**
+     * Working copy of the totals. A day is copied the first time one of its intervals changes,
+     * every other day keeps pointing at the totals of the previous version.
+     */
+    private static final class Update {
+
+        private final List<String> fuels;
+
+        private final Map<Long, Day> days = new TreeMap<>();
+
+        private final Set<Long> copiedDays = new HashSet<>();
+
+        private double[] previousRow = new double[0];
+
+        private double[] currentRow = new double[0];
+
+        private Update(DailyGenerationTotals totals) {
+            this.fuels = new ArrayList<>(Arrays.asList(totals.fuels));
+            for (int d = 0; d < totals.epochDays.length; d++) {
+                days.put(totals.epochDays[d], totals.days[d]);
+            }
+        }
+
+        /**
+         * Maps the fuel columns of a timeline to the columns of the totals, adding fuels not seen before.
+         */
+        private int[] columns(GenerationTimeline timeline) {
+            int[] columns = new int[timeline.fuelCount()];
+            for (int f = 0; f < columns.length; f++) {
+                int column = fuels.indexOf(timeline.fuel(f));
+                if (column < 0) {
+                    column = fuels.size();
+                    fuels.add(timeline.fuel(f));
+                }
+                columns[f] = column;
+            }
+            return columns;
+        }
+
+        private boolean sameValues(GenerationTimeline previous, int i, int[] previousColumns,
+                                   GenerationTimeline current, int j, int[] currentColumns) {
+            if (previous.end(i) != current.end(j)) {
+                return false;
+            }
+            previousRow = row(previous, i, previousColumns, previousRow);
+            currentRow = row(current, j, currentColumns, currentRow);
+            return Arrays.equals(previousRow, currentRow);
+        }
+
+        private double[] row(GenerationTimeline timeline, int interval, int[] columns, double[] row) {
+            if (row.length != fuels.size()) {
+                row = new double[fuels.size()];
+            }
+            Arrays.fill(row, Double.NaN);
+            for (int f = 0; f < columns.length; f++) {
+                row[columns[f]] = timeline.percentage(f, interval);
+            }
+            return row;
+        }
+
+        private void apply(GenerationTimeline timeline, int interval, int[] columns, int sign) {
+            Day day = writableDay(Math.floorDiv(timeline.start(interval), SECONDS_PER_DAY));
+            for (int f = 0; f < columns.length; f++) {
+                double perc = timeline.percentage(f, interval);
+                if (Double.isNaN(perc)) {
+                    continue;
+                }
+                int column = columns[f];
+                day.counts[column] += sign;
+                // reset the sum once a fuel has no values left, so removed values leave no rounding error behind
+                day.sums[column] = day.counts[column] == 0 ? 0 : day.sums[column] + sign * perc;
+            }
+        }
+
+        private Day writableDay(long epochDay) {
+            Day day = days.get(epochDay);
+            if (day != null && copiedDays.contains(epochDay)) {
+                return day;
+            }
+            Day copy = day == null
+                    ? new Day(new double[fuels.size()], new int[fuels.size()])
+                    : new Day(Arrays.copyOf(day.sums, fuels.size()), Arrays.copyOf(day.counts, fuels.size()));
+            days.put(epochDay, copy);
+            copiedDays.add(epochDay);
+            return copy;
+        }
+
+        private DailyGenerationTotals build() {
+            days.entrySet().removeIf(entry -> copiedDays.contains(entry.getKey())
+                    && Arrays.stream(entry.getValue().counts).allMatch(count -> count == 0));
+            long[] epochDays = new long[days.size()];
+            Day[] result = new Day[days.size()];
+            int d = 0;
+            for (Map.Entry<Long, Day> entry : days.entrySet()) {
+                epochDays[d] = entry.getKey();
+                result[d] = entry.getValue();
+                d++;
+            }
+            return new DailyGenerationTotals(fuels.toArray(String[]::new), epochDays, result);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package org.codibly.model;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 public enum EnergySource {
     BIOMASS("biomass"),
     NUCLEAR("nuclear"),
@@ -7,6 +11,10 @@ public enum EnergySource {
     WIND("wind"),
     SOLAR("solar");
 
+    private static final Set<String> FUEL_NAMES = Arrays.stream(values())
+            .map(EnergySource::getFuelName)
+            .collect(Collectors.toUnmodifiableSet());
+
     private final String fuelName;
 
     EnergySource(String fuelName) {
@@ -16,4 +24,12 @@ public enum EnergySource {
     public String getFuelName() {
         return fuelName;
     }
+
+    /**
+     * @param fuelName fuel name as returned by the Carbon Intensity API
+     * @return true if the fuel is a clean energy source
+     */
+    public static boolean isClean(String fuelName) {
+        return FUEL_NAMES.contains(fuelName);
+    }
 }
@@ -0,0 +1,32 @@
+package org.codibly.model;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Half-open UTC time range of generation data requested from the upstream API.
+ *
+ * @param from   start of the range (inclusive)
+ * @param to     end of the range (inclusive for interval end times)
+ * @param region region the data is requested for, or null for the national data
+ */
+public record GenerationRange(
+        ZonedDateTime from,
+        ZonedDateTime to,
+        Region region
+) {
+
+    /**
+     * Creates a range of the national generation data.
+     */
+    public GenerationRange(ZonedDateTime from, ZonedDateTime to) {
+        this(from, to, null);
+    }
+
+    /**
+     * @param region region to request the data for
+     * @return the same time range for the given region
+     */
+    public GenerationRange forRegion(Region region) {
+        return new GenerationRange(from, to, region);
+    }
+}
@@ -0,0 +1,359 @@
+package org.codibly.model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, column-oriented generation timeline.
+ * Interval boundaries are kept as epoch seconds and every fuel has its own column of percentages,
+ * indexed through the fuel dictionary of the timeline. A fuel missing from an interval is stored as NaN.
+ * Intervals are kept in chronological order.
+ */
+public final class GenerationTimeline {
+
+    private static final GenerationTimeline EMPTY = new GenerationTimeline(new String[0], new long[0], new long[0], new double[0][]);
+
+    private final String[] fuels;
+
+    private final long[] starts;
+
+    private final long[] ends;
+
+    private final double[][] percentages;
+
+    private GenerationTimeline(String[] fuels, long[] starts, long[] ends, double[][] percentages) {
+        this.fuels = fuels;
+        this.starts = starts;
+        this.ends = ends;
+        this.percentages = percentages;
+    }
+
+    public static GenerationTimeline empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Joins consecutive timelines into one. Fuel columns are matched by name and an interval
+     * starting before the end of the previously joined interval is treated as a duplicate and skipped.
+     *
+     * @param parts timelines in chronological order
+     * @return timeline holding the intervals of every part
+     */
+    public static GenerationTimeline concat(List<GenerationTimeline> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        Builder builder = builder();
+        long lastEnd = Long.MIN_VALUE;
+        for (GenerationTimeline part : parts) {
+            int[] fuelIndexes = new int[part.fuelCount()];
+            for (int f = 0; f < fuelIndexes.length; f++) {
+                fuelIndexes[f] = builder.fuelIndex(part.fuel(f));
+            }
+            for (int i = 0; i < part.size(); i++) {
+                if (part.starts[i] < lastEnd) {
+                    continue;
+                }
+                builder.interval(part.starts[i], part.ends[i]);
+                for (int f = 0; f < fuelIndexes.length; f++) {
+                    double perc = part.percentages[f][i];
+                    if (!Double.isNaN(perc)) {
+                        builder.percentage(fuelIndexes[f], perc);
+                    }
+                }
+            }
+            if (!part.isEmpty()) {
+                lastEnd = Math.max(lastEnd, part.ends[part.size() - 1]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return number of intervals in the timeline
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * @return number of fuel columns in the timeline
+     */
+    public int fuelCount() {
+        return fuels.length;
+    }
+
+    /**
+     * @param fuelIndex index of the fuel column
+     * @return fuel name as returned by the Carbon Intensity API
+     */
+    public String fuel(int fuelIndex) {
+        return fuels[fuelIndex];
+    }
+
+    /**
+     * @param fuel fuel name as returned by the Carbon Intensity API
+     * @return index of the fuel column, or -1 if the timeline has no data for the fuel
+     */
+    public int fuelIndex(String fuel) {
+        for (int i = 0; i < fuels.length; i++) {
+            if (fuels[i].equals(fuel)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return start of the interval in epoch seconds
+     */
+    public long start(int interval) {
+        return starts[interval];
+    }
+
+    /**
+     * @return end of the interval in epoch seconds
+     */
+    public long end(int interval) {
+        return ends[interval];
+    }
+
+    public ZonedDateTime startTime(int interval) {
+        return toDateTime(starts[interval]);
+    }
+
+    public ZonedDateTime endTime(int interval) {
+        return toDateTime(ends[interval]);
+    }
+
+    /**
+     * @return share of the fuel in the interval, or NaN if the interval has no value for the fuel
+     */
+    public double percentage(int fuelIndex, int interval) {
+        return percentages[fuelIndex][interval];
+    }
+
+    /**
+     * Hashes the fuel names, interval boundaries and percentages of the timeline, so two loads
+     * of the same range can be compared without keeping both copies around.
+     *
+     * @return 64-bit hash of the timeline contents
+     */
+    public long contentHash() {
+        long hash = 1125899906842597L;
+        for (String fuel : fuels) {
+            hash = 31 * hash + fuel.hashCode();
+        }
+        for (int i = 0; i < starts.length; i++) {
+            hash = 31 * hash + starts[i];
+            hash = 31 * hash + ends[i];
+        }
+        for (double[] column : percentages) {
+            for (double perc : column) {
+                hash = 31 * hash + Double.doubleToLongBits(perc);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the intervals that start at or after {@code from} and end at or before {@code to}.
+     * A timeline that already lies within the range is detected with two binary searches and returned as is.
+     *
+     * @param from start of the range in epoch seconds
+     * @param to   end of the range in epoch seconds
+     * @return timeline restricted to the range
+     */
+    public GenerationTimeline slice(long from, long to) {
+        int fromIndex = firstIndexStartingAtOrAfter(from);
+        int toIndex = firstIndexAfter(ends, to, fromIndex);
+        return subTimeline(fromIndex, toIndex);
+    }
+
+    /**
+     * @param epochSecond point in time in epoch seconds
+     * @return index of the first interval starting at or after the point, or the size if there is none
+     */
+    public int firstIndexStartingAtOrAfter(long epochSecond) {
+        return firstIndexAfter(starts, epochSecond - 1, 0);
+    }
+
+    /**
+     * @param epochSecond point in time in epoch seconds
+     * @return index of the first interval ending after the point, or the size if there is none
+     */
+    public int firstIndexEndingAfter(long epochSecond) {
+        return firstIndexAfter(ends, epochSecond, 0);
+    }
+
+    /**
+     * @param fromIndex index of the first interval to keep (inclusive)
+     * @param toIndex   index of the last interval to keep (exclusive)
+     * @return timeline holding the intervals between the indexes
+     */
+    public GenerationTimeline subTimeline(int fromIndex, int toIndex) {
+        if (fromIndex == 0 && toIndex == starts.length) {
+            return this;
+        }
+        double[][] columns = new double[percentages.length][];
+        for (int f = 0; f < percentages.length; f++) {
+            columns[f] = Arrays.copyOfRange(percentages[f], fromIndex, toIndex);
+        }
+        return new GenerationTimeline(
+                fuels,
+                Arrays.copyOfRange(starts, fromIndex, toIndex),
+                Arrays.copyOfRange(ends, fromIndex, toIndex),
+                columns
+        );
+    }
+
+    /**
+     * @return index of the first value greater than {@code key}, searching from {@code fromIndex}
+     */
+    private static int firstIndexAfter(long[] values, long key, int fromIndex) {
+        int low = fromIndex;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static ZonedDateTime toDateTime(long epochSecond) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+
+    /**
+     * Collects intervals in the order they are added. Fuels are added to the dictionary
+     * the first time they appear and intervals without a value for a fuel hold NaN.
+     */
+    public static final class Builder {
+
+        private String[] fuels = new String[0];
+
+        private long[] starts = new long[64];
+
+        private long[] ends = new long[64];
+
+        private double[][] percentages = new double[0][];
+
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Starts a new interval. Percentages added afterwards belong to this interval.
+         *
+         * @param start start of the interval in epoch seconds
+         * @param end   end of the interval in epoch seconds
+         * @return this builder
+         */
+        public Builder interval(long start, long end) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                for (int f = 0; f < percentages.length; f++) {
+                    percentages[f] = grow(percentages[f], capacity);
+                }
+            }
+            starts[size] = start;
+            ends[size] = end;
+            for (double[] column : percentages) {
+                column[size] = Double.NaN;
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Sets the share of a fuel in the current interval.
+         *
+         * @param fuel fuel name as returned by the Carbon Intensity API
+         * @param perc share of the fuel in percent
+         * @return this builder
+         */
+        public Builder percentage(String fuel, double perc) {
+            return percentage(fuelIndex(fuel), perc);
+        }
+
+        /**
+         * Sets the share of a fuel in the current interval.
+         *
+         * @param fuelIndex index returned by {@link #fuelIndex(String)}
+         * @param perc      share of the fuel in percent
+         * @return this builder
+         */
+        public Builder percentage(int fuelIndex, double perc) {
+            percentages[fuelIndex][size - 1] = perc;
+            return this;
+        }
+
+        /**
+         * Returns the column index of a fuel, adding it to the dictionary if it is new.
+         *
+         * @param fuel fuel name as returned by the Carbon Intensity API
+         * @return index of the fuel column
+         */
+        public int fuelIndex(String fuel) {
+            for (int i = 0; i < fuels.length; i++) {
+                if (fuels[i].equals(fuel)) {
+                    return i;
+                }
+            }
+            double[] column = new double[starts.length];
+            Arrays.fill(column, Double.NaN);
+            fuels = Arrays.copyOf(fuels, fuels.length + 1);
+            fuels[fuels.length - 1] = fuel;
+            percentages = Arrays.copyOf(percentages, percentages.length + 1);
+            percentages[percentages.length - 1] = column;
+            return fuels.length - 1;
+        }
+
+        /**
+         * @return number of intervals added so far
+         */
+        public int size() {
+            return size;
+        }
+
+        public GenerationTimeline build() {
+            if (size == 0 && fuels.length == 0) {
+                return EMPTY;
+            }
+            double[][] columns = new double[percentages.length][];
+            for (int f = 0; f < percentages.length; f++) {
+                columns[f] = Arrays.copyOf(percentages[f], size);
+            }
+            return new GenerationTimeline(
+                    fuels.clone(),
+                    Arrays.copyOf(starts, size),
+                    Arrays.copyOf(ends, size),
+                    columns
+            );
+        }
+
+        private static double[] grow(double[] column, int capacity) {
+            double[] grown = Arrays.copyOf(column, capacity);
+            Arrays.fill(grown, column.length, capacity, Double.NaN);
+            return grown;
+        }
+    }
+}
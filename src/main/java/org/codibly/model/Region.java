@@ -0,0 +1,56 @@
+package org.codibly.model;
+
+import java.util.Arrays;
+
+/**
+ * Regions of Great Britain served by the regional endpoints of the Carbon Intensity API,
+ * identified by their API region id.
+ */
+public enum Region {
+    NORTH_SCOTLAND(1, "North Scotland"),
+    SOUTH_SCOTLAND(2, "South Scotland"),
+    NORTH_WEST_ENGLAND(3, "North West England"),
+    NORTH_EAST_ENGLAND(4, "North East England"),
+    YORKSHIRE(5, "Yorkshire"),
+    NORTH_WALES_AND_MERSEYSIDE(6, "North Wales & Merseyside"),
+    SOUTH_WALES(7, "South Wales"),
+    WEST_MIDLANDS(8, "West Midlands"),
+    EAST_MIDLANDS(9, "East Midlands"),
+    EAST_ENGLAND(10, "East England"),
+    SOUTH_WEST_ENGLAND(11, "South West England"),
+    SOUTH_ENGLAND(12, "South England"),
+    LONDON(13, "London"),
+    SOUTH_EAST_ENGLAND(14, "South East England"),
+    ENGLAND(15, "England"),
+    SCOTLAND(16, "Scotland"),
+    WALES(17, "Wales");
+
+    private final int id;
+
+    private final String shortName;
+
+    Region(int id, String shortName) {
+        this.id = id;
+        this.shortName = shortName;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    /**
+     * @param id region id as used by the Carbon Intensity API
+     * @return region with the given id
+     * @throws IllegalArgumentException if there is no region with the given id
+     */
+    public static Region fromId(int id) {
+        return Arrays.stream(values())
+                .filter(region -> region.id == id)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown region id: " + id));
+    }
+}
@@ -0,0 +1,98 @@
+package org.codibly.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Bucket sizes of the generation rollups, from the finest to the coarsest.
+ * Buckets are aligned to UTC: hours and days on their start, weeks on Monday and months on their first day.
+ */
+public enum RollupResolution {
+    HOUR(3_600),
+    DAY(86_400),
+    WEEK(7 * 86_400),
+    MONTH(28 * 86_400);
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /**
+     * 1970-01-01 was a Thursday, three days after the Monday that starts its week.
+     */
+    private static final long EPOCH_DAY_OF_WEEK = 3;
+
+    private final long minSeconds;
+
+    RollupResolution(long minSeconds) {
+        this.minSeconds = minSeconds;
+    }
+
+    /**
+     * @return length of the shortest bucket in seconds
+     */
+    public long getMinSeconds() {
+        return minSeconds;
+    }
+
+    /**
+     * @param epochSecond point in time in epoch seconds
+     * @return start of the bucket holding the point, in epoch seconds
+     */
+    public long bucketStart(long epochSecond) {
+        return switch (this) {
+            case HOUR -> Math.floorDiv(epochSecond, 3_600) * 3_600;
+            case DAY -> Math.floorDiv(epochSecond, SECONDS_PER_DAY) * SECONDS_PER_DAY;
+            case WEEK -> {
+                long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+                yield (Math.floorDiv(epochDay + EPOCH_DAY_OF_WEEK, 7) * 7 - EPOCH_DAY_OF_WEEK) * SECONDS_PER_DAY;
+            }
+            case MONTH -> LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY))
+                    .withDayOfMonth(1)
+                    .toEpochDay() * SECONDS_PER_DAY;
+        };
+    }
+
+    /**
+     * @param bucketStart start of a bucket in epoch seconds
+     * @return start of the following bucket, in epoch seconds
+     */
+    public long nextBucketStart(long bucketStart) {
+        return switch (this) {
+            case HOUR, DAY, WEEK -> bucketStart + minSeconds;
+            case MONTH -> LocalDate.ofEpochDay(Math.floorDiv(bucketStart, SECONDS_PER_DAY))
+                    .plusMonths(1)
+                    .toEpochDay() * SECONDS_PER_DAY;
+        };
+    }
+
+    /**
+     * Picks the coarsest resolution whose buckets exactly cover the range,
+     * falling back to hours when the range does not start and end on full hours.
+     *
+     * @param from start of the range in epoch seconds (inclusive)
+     * @param to   end of the range in epoch seconds (exclusive)
+     * @return coarsest resolution aligned with both ends of the range
+     */
+    public static RollupResolution coarsestCovering(long from, long to) {
+        RollupResolution[] resolutions = values();
+        for (int r = resolutions.length - 1; r > 0; r--) {
+            RollupResolution resolution = resolutions[r];
+            if (resolution.bucketStart(from) == from && resolution.bucketStart(to) == to) {
+                return resolution;
+            }
+        }
+        return HOUR;
+    }
+
+    /**
+     * @param name name of the resolution, in any case
+     * @return resolution with the given name
+     * @throws IllegalArgumentException if there is no resolution with the given name
+     */
+    public static RollupResolution fromName(String name) {
+        return Arrays.stream(values())
+                .filter(resolution -> resolution.name().equals(name.toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown rollup resolution: " + name));
+    }
+}
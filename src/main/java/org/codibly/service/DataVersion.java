@@ -0,0 +1,49 @@
+package org.codibly.service;
+
+import java.time.Instant;
+
+/**
+ * Version of a cached generation timeline.
+ *
+ * @param hash         content hash of the timeline
+ * @param lastModified time the content of the timeline last changed, truncated to seconds
+ * @param stale        whether the timeline is past its TTL and served only because reloading it failed
+ * @param encoding     content coding of the representation the version labels, or null for the identity coding
+ */
+public record DataVersion(
+        long hash,
+        Instant lastModified,
+        boolean stale,
+        String encoding
+) {
+
+    public DataVersion(long hash, Instant lastModified) {
+        this(hash, lastModified, false, null);
+    }
+
+    /**
+     * @return the same version marked as stale
+     */
+    public DataVersion asStale() {
+        return new DataVersion(hash, lastModified, true, encoding);
+    }
+
+    /**
+     * Labels a representation of the data in another content coding. Its bytes differ from the identity coding,
+     * so it gets its own entity tag.
+     *
+     * @param encoding content coding of the representation, or null for the identity coding
+     * @return the same version labelling the representation in the given coding
+     */
+    public DataVersion withEncoding(String encoding) {
+        return new DataVersion(hash, lastModified, stale, encoding);
+    }
+
+    /**
+     * @return quoted entity tag derived from the content hash, with the content coding appended if there is one
+     */
+    public String etag() {
+        String tag = Long.toHexString(hash);
+        return "\"" + (encoding == null ? tag : tag + "-" + encoding) + "\"";
+    }
+}
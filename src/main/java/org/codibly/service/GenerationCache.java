@@ -0,0 +1,287 @@
+package org.codibly.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.codibly.config.GenerationCacheProperties;
+import org.codibly.model.DailyGenerationTotals;
+import org.codibly.model.GenerationRange;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.time.TimeProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared cache of generation timelines keyed by the requested range.
+ * Cached ranges are reloaded in the background on every half-hour, when the upstream
+ * publishes new data, so requests are normally served without an upstream round trip.
+ * When reloading an expired range fails, the last good timeline keeps being served, marked as stale,
+ * for up to the configured maximum staleness.
+ */
+@Slf4j
+@Component
+public class GenerationCache {
+
+    private final GenerationDataLoader generationDataLoader;
+
+    private final TimeProvider timeProvider;
+
+    private final GenerationCacheProperties properties;
+
+    private final ExecutorService upstreamExecutor;
+
+    private final Semaphore refreshPermits;
+
+    private final Map<GenerationRange, CachedTimeline> entries;
+
+    private final List<Runnable> refreshListeners = new CopyOnWriteArrayList<>();
+
+    public GenerationCache(GenerationDataLoader generationDataLoader,
+                           TimeProvider timeProvider,
+                           GenerationCacheProperties properties,
+                           @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor) {
+        this.generationDataLoader = generationDataLoader;
+        this.timeProvider = timeProvider;
+        this.properties = properties;
+        this.upstreamExecutor = upstreamExecutor;
+        this.refreshPermits = new Semaphore(properties.refreshConcurrency());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GenerationRange, CachedTimeline> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+    }
+
+    /**
+     * Returns the timeline for the given range, loading it from the upstream API
+     * when it is not cached yet or the cached copy is older than the configured TTL.
+     * If the reload fails, the expired copy is returned while it is within the maximum staleness.
+     *
+     * @param range time range of the timeline
+     * @return generation timeline of the range
+     */
+    public GenerationTimeline get(GenerationRange range) {
+        return entry(range, timeProvider.getInstant()).value;
+    }
+
+    /**
+     * Returns the timeline for the given range like {@link #get(GenerationRange)} together with its version,
+     * both read from the same cache entry, so the version describes the timeline even when a refresh
+     * replaces the entry in between.
+     *
+     * @param range time range of the timeline
+     * @return generation timeline of the range with its version
+     */
+    public Versioned<GenerationTimeline> getVersioned(GenerationRange range) {
+        Instant now = timeProvider.getInstant();
+        CachedTimeline entry = entry(range, now);
+        return new Versioned<>(isFresh(entry, now) ? entry.version : entry.version.asStale(), entry.value);
+    }
+
+    /**
+     * Returns the daily totals of the timeline for the given range, loading it like {@link #get(GenerationRange)}.
+     * The totals are updated incrementally on every reload, so only days whose intervals changed are recalculated.
+     *
+     * @param range time range of the timeline
+     * @return daily totals of the timeline of the range
+     */
+    public DailyGenerationTotals getDailyTotals(GenerationRange range) {
+        return entry(range, timeProvider.getInstant()).dailyTotals;
+    }
+
+    /**
+     * Returns the daily totals of the timeline for the given range together with their version,
+     * both read from the same cache entry, so the version describes the totals even when a refresh
+     * replaces the entry in between.
+     *
+     * @param range time range of the timeline
+     * @return daily totals of the timeline of the range with the version of the timeline
+     */
+    public Versioned<DailyGenerationTotals> getVersionedDailyTotals(GenerationRange range) {
+        Instant now = timeProvider.getInstant();
+        CachedTimeline entry = entry(range, now);
+        return new Versioned<>(isFresh(entry, now) ? entry.version : entry.version.asStale(), entry.dailyTotals);
+    }
+
+    /**
+     * Returns the version of the timeline cached for the given range, loading it first when needed.
+     * The version only changes when a reload brings different data, so it can be used for conditional requests.
+     * A timeline served past its TTL because reloading it failed is reported as a stale version.
+     *
+     * @param range time range of the timeline
+     * @return version of the cached timeline
+     */
+    public DataVersion version(GenerationRange range) {
+        Instant now = timeProvider.getInstant();
+        CachedTimeline entry = entry(range, now);
+        return isFresh(entry, now) ? entry.version : entry.version.asStale();
+    }
+
+    /**
+     * Returns the version of the timeline cached for the given range without loading it.
+     * An entry that would be reloaded by {@link #version(GenerationRange)} has no current version,
+     * so callers that must not wait on the upstream can tell when a load is needed.
+     *
+     * @param range time range of the timeline
+     * @return version of the cached timeline, or null if it is not cached or must be reloaded first
+     */
+    public DataVersion cachedVersion(GenerationRange range) {
+        Instant now = timeProvider.getInstant();
+        CachedTimeline entry;
+        synchronized (entries) {
+            entry = entries.get(range);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (isFresh(entry, now)) {
+            return entry.version;
+        }
+        return isRetryPending(entry, now) ? entry.version.asStale() : null;
+    }
+
+    private CachedTimeline entry(GenerationRange range, Instant now) {
+        CachedTimeline entry;
+        synchronized (entries) {
+            entry = entries.get(range);
+            if (entry != null) {
+                entry.lastAccess = now;
+            }
+        }
+        if (entry == null) {
+            return load(range, now);
+        }
+        if (isFresh(entry, now) || isRetryPending(entry, now)) {
+            return entry;
+        }
+        try {
+            return load(range, now);
+        } catch (RuntimeException ex) {
+            if (!entry.loadedAt.plus(properties.ttl()).plus(properties.maxStale()).isAfter(now)) {
+                throw ex;
+            }
+            log.warn("Serving stale generation data for {}: {}", range, ex.getMessage());
+            entry.failedAt = now;
+            return entry;
+        }
+    }
+
+    private boolean isFresh(CachedTimeline entry, Instant now) {
+        return entry.loadedAt.plus(properties.ttl()).isAfter(now);
+    }
+
+    private boolean isRetryPending(CachedTimeline entry, Instant now) {
+        return entry.failedAt != null && entry.failedAt.plus(properties.staleRetryInterval()).isAfter(now);
+    }
+
+    /**
+     * Registers a listener that is called after every scheduled refresh, once all cached ranges are reloaded.
+     *
+     * @param listener callback run on the scheduler thread
+     */
+    public void addRefreshListener(Runnable listener) {
+        refreshListeners.add(listener);
+    }
+
+    /**
+     * Reloads every cached range on the half-hour and evicts ranges
+     * that have not been requested for longer than the configured idle time.
+     * Ranges are reloaded concurrently on the upstream executor, at most the configured refresh concurrency at a time.
+     * A failed reload keeps the previous timeline until it expires.
+     * Refresh listeners are notified once all reloads have finished.
+     */
+    @Scheduled(cron = "${generation.cache.refresh-cron:0 0,30 * * * *}")
+    public void refresh() {
+        Instant now = timeProvider.getInstant();
+        List<GenerationRange> ranges;
+        synchronized (entries) {
+            entries.values().removeIf(e -> !e.lastAccess.plus(properties.expireAfterAccess()).isAfter(now));
+            ranges = List.copyOf(entries.keySet());
+        }
+        List<CompletableFuture<Void>> reloads = new ArrayList<>(ranges.size());
+        for (GenerationRange range : ranges) {
+            reloads.add(CompletableFuture.runAsync(() -> reloadWithPermit(range, now), upstreamExecutor));
+        }
+        CompletableFuture.allOf(reloads.toArray(CompletableFuture[]::new)).join();
+        for (Runnable listener : refreshListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException ex) {
+                log.warn("Generation refresh listener failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void reloadWithPermit(GenerationRange range, Instant now) {
+        try {
+            refreshPermits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted before refreshing generation data for {}", range);
+            return;
+        }
+        try {
+            load(range, now);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to refresh generation data for {}: {}", range, ex.getMessage());
+        } finally {
+            refreshPermits.release();
+        }
+    }
+
+    private CachedTimeline load(GenerationRange range, Instant now) {
+        GenerationTimeline value = generationDataLoader.load(range);
+        long hash = value.contentHash();
+        CachedTimeline base;
+        synchronized (entries) {
+            base = entries.get(range);
+        }
+        DailyGenerationTotals dailyTotals;
+        if (base == null) {
+            dailyTotals = DailyGenerationTotals.of(value);
+        } else if (base.version.hash() == hash) {
+            dailyTotals = base.dailyTotals;
+        } else {
+            dailyTotals = base.dailyTotals.updated(base.value, value);
+        }
+        synchronized (entries) {
+            CachedTimeline previous = entries.get(range);
+            DataVersion version = previous != null && previous.version.hash() == hash
+                    ? previous.version
+                    : new DataVersion(hash, now.truncatedTo(ChronoUnit.SECONDS));
+            CachedTimeline entry = new CachedTimeline(value, version, dailyTotals, now,
+                    previous != null ? previous.lastAccess : now);
+            entries.put(range, entry);
+            return entry;
+        }
+    }
+
+    private static final class CachedTimeline {
+        private final GenerationTimeline value;
+        private final DataVersion version;
+        private final DailyGenerationTotals dailyTotals;
+        private final Instant loadedAt;
+        private Instant lastAccess;
+        private volatile Instant failedAt;
+
+        private CachedTimeline(GenerationTimeline value, DataVersion version, DailyGenerationTotals dailyTotals,
+                               Instant loadedAt, Instant lastAccess) {
+            this.value = value;
+            this.version = version;
+            this.dailyTotals = dailyTotals;
+            this.loadedAt = loadedAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
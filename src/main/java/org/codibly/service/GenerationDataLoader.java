@@ -0,0 +1,321 @@
+package org.codibly.service;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.exception.GenerationProviderConnectionException;
+import org.codibly.exception.NoGenerationFoundExcepion;
+import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.history.GenerationHistoryStore;
+import org.codibly.model.GenerationRange;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.time.TimeProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+public class GenerationDataLoader {
+
+    private final CarbonIntensityClient carbonIntensityClient;
+
+    private final GenerationFetchPlanner fetchPlanner;
+
+    private final ExecutorService upstreamExecutor;
+
+    private final Semaphore chunkPermits;
+
+    private final TimeProvider timeProvider;
+
+    private final Optional<GenerationHistoryStore> historyStore;
+
+    private final MeterRegistry meterRegistry;
+
+    private final GenerationFetchProperties.Hedge hedge;
+
+    private final Counter hedgedCalls;
+
+    private final LatencyTracker upstreamLatency = new LatencyTracker(256);
+
+    private final SingleFlight<String, GenerationTimeline> upstreamCalls = new SingleFlight<>();
+
+    private final List<Consumer<GenerationTimeline>> ingestListeners = new CopyOnWriteArrayList<>();
+
+    private static final DateTimeFormatter API_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'Z'");
+
+    public GenerationDataLoader(CarbonIntensityClient carbonIntensityClient,
+                                GenerationFetchProperties properties,
+                                @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor,
+                                TimeProvider timeProvider,
+                                Optional<GenerationHistoryStore> historyStore,
+                                MeterRegistry meterRegistry) {
+        this.carbonIntensityClient = carbonIntensityClient;
+        this.fetchPlanner = new GenerationFetchPlanner(properties.maxChunk());
+        this.upstreamExecutor = upstreamExecutor;
+        this.chunkPermits = new Semaphore(properties.maxConcurrency());
+        this.timeProvider = timeProvider;
+        this.historyStore = historyStore;
+        this.meterRegistry = meterRegistry;
+        this.hedge = properties.hedge();
+        this.hedgedCalls = Counter.builder("generation.upstream.hedged")
+                .description("Upstream generation calls that were slow enough to send a hedged second request")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("generation.upstream.calls", upstreamCalls, SingleFlight::getExecutedCalls)
+                .description("Upstream generation calls by whether they were sent or joined one in flight")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        FunctionCounter.builder("generation.upstream.calls", upstreamCalls, SingleFlight::getCoalescedCalls)
+                .description("Upstream generation calls by whether they were sent or joined one in flight")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fetches generation data from the Carbon Intensity API for the given range.
+     * Ranges longer than the maximum chunk are split into chunks fetched concurrently
+     * on virtual threads and merged in order.
+     * Entries outside the range are dropped by the decoder while the payload is parsed.
+     * Concurrent loads of the same chunk share a single upstream call. When hedging is enabled, a call that is
+     * slower than the configured percentile of recent calls is sent a second time and the first answer wins.
+     * Ranges of a region are fetched from the regional endpoint.
+     * When the history store is enabled, national chunks that lie fully in the past are read from it
+     * if it holds all of their intervals, and every fetched national chunk is written to it.
+     *
+     * @param range time range to fetch generation data for
+     * @return generation timeline of the range
+     * @throws NoGenerationFoundExcepion if no data is found in the API response
+     * @throws GenerationProviderConnectionException if there is a connection issue with the API
+     */
+    public GenerationTimeline load(GenerationRange range) {
+        List<GenerationRange> chunks = fetchPlanner.plan(range);
+        if (chunks.size() == 1) {
+            return fetchChunk(range);
+        }
+
+        List<Future<GenerationTimeline>> futures = new ArrayList<>(chunks.size());
+        for (GenerationRange chunk : chunks) {
+            futures.add(upstreamExecutor.submit(() -> fetchChunkWithPermit(chunk)));
+        }
+
+        List<GenerationTimeline> parts = new ArrayList<>(chunks.size());
+        try {
+            for (Future<GenerationTimeline> future : futures) {
+                parts.add(await(future));
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return GenerationTimeline.concat(parts);
+    }
+
+    /**
+     * Registers a listener that receives every national chunk as it is fetched or read from the history store.
+     * Chunks of overlapping ranges may be passed more than once and revised intervals are passed again.
+     *
+     * @param listener callback run on the loading thread
+     */
+    public void addIngestListener(Consumer<GenerationTimeline> listener) {
+        ingestListeners.add(listener);
+    }
+
+    /**
+     * @return number of upstream calls that were actually sent
+     */
+    public long getUpstreamCalls() {
+        return upstreamCalls.getExecutedCalls();
+    }
+
+    /**
+     * @return number of loads that joined an identical upstream call already in flight
+     */
+    public long getCoalescedCalls() {
+        return upstreamCalls.getCoalescedCalls();
+    }
+
+    private GenerationTimeline fetchChunkWithPermit(GenerationRange chunk) throws InterruptedException {
+        chunkPermits.acquire();
+        try {
+            return fetchChunk(chunk);
+        } finally {
+            chunkPermits.release();
+        }
+    }
+
+    private GenerationTimeline fetchChunk(GenerationRange chunk) {
+        Optional<GenerationTimeline> stored = readHistory(chunk);
+        if (stored.isPresent()) {
+            ingest(stored.get());
+            return stored.get();
+        }
+
+        String from = chunk.from().format(API_FORMATTER);
+        String to = chunk.to().format(API_FORMATTER);
+        String key = chunk.region() == null ? from + "/" + to : from + "/" + to + "/" + chunk.region().getId();
+
+        return upstreamCalls.execute(key, () -> fetch(chunk, from, to));
+    }
+
+    private GenerationTimeline fetch(GenerationRange range, String from, String to) {
+        try {
+            GenerationTimeline timeline = Optional.ofNullable(
+                    hedge.enabled() ? hedgedGenerationMix(range, from, to) : timedGenerationMix(range, from, to)
+            ).orElseThrow(() -> new NoGenerationFoundExcepion("No generation data found for the requested period."));
+
+            if (range.region() == null) {
+                writeHistory(timeline);
+                ingest(timeline);
+            }
+            return timeline;
+
+        } catch (RestClientException ex) {
+            throw new GenerationProviderConnectionException("Failed to fetch data from CarbonIntensity API", ex);
+        } catch (FeignException ex) {
+            throw new GenerationProviderConnectionException("Failed to fetch data from CarbonIntensity API", ex);
+        }
+    }
+
+    /**
+     * Sends the upstream call and, if it has not answered within the hedge delay, a second identical one.
+     * The first successful answer is returned; the call only fails when both requests fail.
+     */
+    private GenerationTimeline hedgedGenerationMix(GenerationRange range, String from, String to) {
+        CompletableFuture<GenerationTimeline> primary =
+                CompletableFuture.supplyAsync(() -> timedGenerationMix(range, from, to), upstreamExecutor);
+        try {
+            return primary.get(hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            hedgedCalls.increment();
+            CompletableFuture<GenerationTimeline> secondary =
+                    CompletableFuture.supplyAsync(() -> timedGenerationMix(range, from, to), upstreamExecutor);
+            return join(firstSuccessful(primary, secondary));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching generation data", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to fetch generation data", ex.getCause());
+        }
+    }
+
+    private Duration hedgeDelay() {
+        Duration percentile = upstreamLatency.percentile(hedge.percentile());
+        return percentile.compareTo(hedge.minDelay()) > 0 ? percentile : hedge.minDelay();
+    }
+
+    private static CompletableFuture<GenerationTimeline> firstSuccessful(CompletableFuture<GenerationTimeline> first,
+                                                                         CompletableFuture<GenerationTimeline> second) {
+        CompletableFuture<GenerationTimeline> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<GenerationTimeline> call : List.of(first, second)) {
+            call.whenComplete((timeline, ex) -> {
+                if (ex == null) {
+                    result.complete(timeline);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static GenerationTimeline join(CompletableFuture<GenerationTimeline> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Calls the national or regional upstream endpoint and records its latency, tagged with the outcome of the call.
+     */
+    private GenerationTimeline timedGenerationMix(GenerationRange range, String from, String to) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            GenerationTimeline timeline = range.region() == null
+                    ? carbonIntensityClient.getGenerationMix(from, to)
+                    : carbonIntensityClient.getRegionalGenerationMix(from, to, range.region().getId());
+            outcome = timeline == null ? "no_data" : "success";
+            return timeline;
+        } finally {
+            long nanos = sample.stop(Timer.builder("generation.upstream.requests")
+                    .description("Latency of Carbon Intensity API generation calls")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            if (!"error".equals(outcome)) {
+                upstreamLatency.record(nanos);
+            }
+        }
+    }
+
+    private Optional<GenerationTimeline> readHistory(GenerationRange chunk) {
+        if (historyStore.isEmpty() || chunk.region() != null || chunk.to().toInstant().isAfter(timeProvider.getInstant())) {
+            return Optional.empty();
+        }
+        return historyStore.get().read(chunk.from().toEpochSecond(), chunk.to().toEpochSecond());
+    }
+
+    private void writeHistory(GenerationTimeline timeline) {
+        historyStore.ifPresent(store -> {
+            try {
+                store.append(timeline);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to write generation history: {}", ex.getMessage());
+            }
+        });
+    }
+
+    private void ingest(GenerationTimeline timeline) {
+        for (Consumer<GenerationTimeline> listener : ingestListeners) {
+            try {
+                listener.accept(timeline);
+            } catch (RuntimeException ex) {
+                log.warn("Generation ingest listener failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private static GenerationTimeline await(Future<GenerationTimeline> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching generation data", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to fetch generation data", ex.getCause());
+        }
+    }
+}
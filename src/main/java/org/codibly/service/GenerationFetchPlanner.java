@@ -0,0 +1,43 @@
+package org.codibly.service;
+
+import org.codibly.model.GenerationRange;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a requested range into consecutive chunks no longer than the upstream call size.
+ * Neighbouring chunks share their boundary, which is the end of one chunk's last interval
+ * and the start of the next chunk's first interval. Every chunk keeps the region of the requested range.
+ */
+public class GenerationFetchPlanner {
+
+    private final Duration maxChunk;
+
+    public GenerationFetchPlanner(Duration maxChunk) {
+        if (maxChunk.isZero() || maxChunk.isNegative()) {
+            throw new IllegalArgumentException("Maximum chunk length must be positive");
+        }
+        this.maxChunk = maxChunk;
+    }
+
+    /**
+     * @param range requested range
+     * @return chunks covering the range in chronological order
+     */
+    public List<GenerationRange> plan(GenerationRange range) {
+        List<GenerationRange> chunks = new ArrayList<>();
+        ZonedDateTime chunkStart = range.from();
+        while (true) {
+            ZonedDateTime chunkEnd = chunkStart.plus(maxChunk);
+            if (!chunkEnd.isBefore(range.to())) {
+                chunks.add(new GenerationRange(chunkStart, range.to(), range.region()));
+                return chunks;
+            }
+            chunks.add(new GenerationRange(chunkStart, chunkEnd, range.region()));
+            chunkStart = chunkEnd;
+        }
+    }
+}
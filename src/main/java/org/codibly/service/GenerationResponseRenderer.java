@@ -0,0 +1,78 @@
+package org.codibly.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the serialized bodies of the three-day averages, as JSON and gzip, for the current data version.
+ * The averages are only recalculated and serialized when the version changes, so every other request
+ * is answered by writing the stored bytes.
+ */
+@Component
+public class GenerationResponseRenderer {
+
+    private final GenerationService generationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<RenderedResponse> threeDays = new AtomicReference<>();
+
+    public GenerationResponseRenderer(GenerationService generationService, ObjectMapper objectMapper) {
+        this.generationService = generationService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the three-day averages rendered for the given data version, rendering them if the stored
+     * bytes belong to another version. Averages with fuel profile shares are rendered on every call,
+     * as they differ between requests. Rendered bytes always carry the version of the data they were
+     * calculated from, which differs from the given one if a refresh brought new data in the meantime.
+     *
+     * @param version  current version of the data behind the three-day averages
+     * @param profiles names of the fuel profiles to report, or null or empty for none
+     * @return serialized three-day averages with the version of their data
+     */
+    public RenderedResponse renderThreeDays(DataVersion version, List<String> profiles) {
+        if (profiles != null && !profiles.isEmpty()) {
+            return render(generationService.getVersionedThreeDaysAverage(profiles));
+        }
+        RenderedResponse rendered = threeDays.get();
+        if (rendered != null && rendered.version().hash() == version.hash()) {
+            return rendered;
+        }
+        rendered = render(generationService.getVersionedThreeDaysAverage(List.of()));
+        threeDays.set(rendered);
+        return rendered;
+    }
+
+    private RenderedResponse render(Versioned<?> body) {
+        byte[] json = toJson(body.value());
+        return new RenderedResponse(body.version(), json, gzip(json));
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize generation response", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to compress generation response", ex);
+        }
+        return out.toByteArray();
+    }
+}
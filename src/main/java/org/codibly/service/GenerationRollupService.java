@@ -0,0 +1,92 @@
+package org.codibly.service;
+
+import org.codibly.dto.response.GenerationRollupResponse;
+import org.codibly.dto.response.RollupBucketResponse;
+import org.codibly.exception.NoGenerationFoundExcepion;
+import org.codibly.model.EnergySource;
+import org.codibly.model.RollupResolution;
+import org.codibly.service.rollup.GenerationRollupStore;
+import org.codibly.service.rollup.RollupBucket;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves hourly, daily, weekly and monthly averages of the national generation data over long ranges
+ * from the pre-aggregated rollups, without going over the individual intervals.
+ */
+@Service
+public class GenerationRollupService {
+
+    private static final int MAX_BUCKETS = 10_000;
+
+    private final GenerationRollupStore rollupStore;
+
+    public GenerationRollupService(GenerationRollupStore rollupStore) {
+        this.rollupStore = rollupStore;
+    }
+
+    /**
+     * Reads the averages of every bucket in a range. Without a resolution, the coarsest one whose buckets
+     * exactly cover the range is used, so a range from one Monday to another is answered in weeks.
+     *
+     * @param from       start of the range (inclusive)
+     * @param to         end of the range (exclusive)
+     * @param resolution name of the bucket size (hour, day, week or month), or null to pick it from the range
+     * @return DTO with the resolution used and the averages of every bucket with data
+     * @throws IllegalArgumentException if the range or the resolution is invalid or the range has too many buckets
+     * @throws NoGenerationFoundExcepion if no data has been loaded for the range
+     */
+    public GenerationRollupResponse getRollup(ZonedDateTime from, ZonedDateTime to, String resolution) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Rollup range must start before it ends");
+        }
+        long fromSecond = from.toEpochSecond();
+        long toSecond = to.toEpochSecond();
+        RollupResolution bucketSize = resolution == null
+                ? RollupResolution.coarsestCovering(fromSecond, toSecond)
+                : RollupResolution.fromName(resolution);
+        if ((toSecond - fromSecond) / bucketSize.getMinSeconds() > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Rollup range must not span more than " + MAX_BUCKETS + " buckets");
+        }
+
+        List<RollupBucket> buckets = rollupStore.query(fromSecond, toSecond, bucketSize);
+        if (buckets.isEmpty()) {
+            throw new NoGenerationFoundExcepion("No generation data found for the requested period.");
+        }
+
+        List<RollupBucketResponse> result = new ArrayList<>(buckets.size());
+        for (RollupBucket bucket : buckets) {
+            result.add(new RollupBucketResponse(
+                    toUtc(bucket.start()),
+                    toUtc(bucket.end()),
+                    bucket.averages(),
+                    calculateCleanEnergy(bucket.averages())
+            ));
+        }
+        return new GenerationRollupResponse(bucketSize, result);
+    }
+
+    /**
+     * @param averages average percentage of every fuel
+     * @return total clean energy percentage, as defined by the EnergySource enum
+     */
+    private double calculateCleanEnergy(Map<String, Double> averages) {
+        double clean = 0;
+        for (Map.Entry<String, Double> entry : averages.entrySet()) {
+            if (EnergySource.isClean(entry.getKey())) {
+                clean += entry.getValue();
+            }
+        }
+        return clean;
+    }
+
+    private static ZonedDateTime toUtc(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond).atZone(ZoneOffset.UTC);
+    }
+}
@@ -1,39 +1,80 @@
 package org.codibly.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.request.FleetScheduleRequest;
+import org.codibly.dto.request.VehicleChargingRequest;
+import org.codibly.dto.response.ChargingSlotResponse;
+import org.codibly.dto.response.ChargingWindowBatchItemResponse;
 import org.codibly.dto.response.DailyGenerationResponse;
-import org.codibly.dto.response.GenerationResponse;
-import org.codibly.dto.response.GenerationResponse.GenerationEntry;
+import org.codibly.dto.response.FleetScheduleResponse;
 import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.dto.response.VehicleScheduleResponse;
 import org.codibly.exception.GenerationProviderConnectionException;
 import org.codibly.exception.NoGenerationFoundExcepion;
-import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.model.DailyGenerationTotals;
 import org.codibly.model.EnergySource;
+import org.codibly.model.GenerationRange;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.service.profile.FuelProfiles;
+import org.codibly.service.profile.ProfileSelection;
+import org.codibly.service.schedule.FleetChargingScheduler;
+import org.codibly.service.schedule.VehicleDemand;
+import org.codibly.service.window.CleanEnergyWindowIndex;
+import org.codibly.service.window.CleanEnergyWindowSearch;
 import org.codibly.time.TimeProvider;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class GenerationService {
 
     private final TimeProvider timeProvider;
 
-    private final CarbonIntensityClient carbonIntensityClient;
+    private final GenerationCache generationCache;
 
-    private static final DateTimeFormatter API_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'Z'");
+    private final FuelProfiles fuelProfiles;
+
+    private final Timer dailyAverageTimer;
+
+    private final Timer windowSearchTimer;
+
+    private final Timer fleetScheduleTimer;
+
+    private final Timer windowIndexTimer;
+
+    private final AtomicReference<IndexedTimeline> windowIndex = new AtomicReference<>();
 
     private static final DateTimeFormatter DAY_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    public GenerationService(TimeProvider timeProvider, CarbonIntensityClient carbonIntensityClient) {
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    private static final long REFRESH_PERIOD_SECONDS = 1800;
+
+    private static final int MAX_TOP_WINDOWS = 10;
+
+    private static final int MAX_WINDOW_HOURS = 6;
+
+    private static final int MAX_WINDOW_SIZE = MAX_WINDOW_HOURS * 2;
+
+    public GenerationService(TimeProvider timeProvider, GenerationCache generationCache, FuelProfiles fuelProfiles,
+                             MeterRegistry meterRegistry) {
         this.timeProvider = timeProvider;
-        this.carbonIntensityClient = carbonIntensityClient;
+        this.generationCache = generationCache;
+        this.fuelProfiles = fuelProfiles;
+        this.dailyAverageTimer = aggregationTimer(meterRegistry, "daily-average");
+        this.windowSearchTimer = aggregationTimer(meterRegistry, "window-search");
+        this.fleetScheduleTimer = aggregationTimer(meterRegistry, "fleet-schedule");
+        this.windowIndexTimer = aggregationTimer(meterRegistry, "window-index");
+        generationCache.addRefreshListener(this::prepareWindowIndex);
     }
 
     /**
@@ -44,105 +85,218 @@ public class GenerationService {
      * @return a list of DTOs containing the daily averages
      */
     public List<DailyGenerationResponse> getThreeDaysAverage() {
-        GenerationResponse response = fetchGenerationData(0,3);
-        Map<String, List<GenerationEntry>> grouped = groupEntriesByDate(response);
+        return getThreeDaysAverage(List.of());
+    }
 
-        return calculateDailyAverages(grouped);
+    /**
+     * Calculates the three-day averages together with the share of every requested fuel profile.
+     *
+     * @param profiles names of the fuel profiles to report, or null or empty for none
+     * @return a list of DTOs containing the daily averages and profile shares
+     * @throws IllegalArgumentException if a profile is unknown
+     */
+    public List<DailyGenerationResponse> getThreeDaysAverage(List<String> profiles) {
+        ProfileSelection selection = fuelProfiles.select(profiles);
+        DailyGenerationTotals totals = generationCache.getDailyTotals(generationRange(0, 3));
+
+        return dailyAverages(totals, selection);
+    }
+
+    /**
+     * Calculates the three-day averages like {@link #getThreeDaysAverage(List)} and returns them together with
+     * the version of the data they were calculated from, so a response can be labelled with a matching version.
+     *
+     * @param profiles names of the fuel profiles to report, or null or empty for none
+     * @return daily averages and profile shares with the version of the data behind them
+     * @throws IllegalArgumentException if a profile is unknown
+     */
+    public Versioned<List<DailyGenerationResponse>> getVersionedThreeDaysAverage(List<String> profiles) {
+        ProfileSelection selection = fuelProfiles.select(profiles);
+        Versioned<DailyGenerationTotals> totals = generationCache.getVersionedDailyTotals(generationRange(0, 3));
+
+        return new Versioned<>(totals.version(), dailyAverages(totals.value(), selection));
     }
 
     /**
-     * Fetches generation data from the Carbon Intensity API for a given number of days.
+     * Reads the average share of each energy source and the clean energy percentage for every day
+     * from the running daily totals, without going over the intervals of the timeline.
      *
+     * @param totals daily totals of a generation timeline
+     * @return a list of DTOs containing the daily averages
+     */
+    List<DailyGenerationResponse> dailyAverages(DailyGenerationTotals totals) {
+        return dailyAverages(totals, fuelProfiles.select(List.of()));
+    }
+
+    private List<DailyGenerationResponse> dailyAverages(DailyGenerationTotals totals, ProfileSelection profiles) {
+        return dailyAverageTimer.record(() -> calculateDailyAverages(totals, profiles));
+    }
+
+    /**
+     * Returns generation data for a given number of days from the shared cache,
+     * which fetches it from the Carbon Intensity API when needed.
+     *
+     * @param startDayOffset number of days from today at which the range starts
      * @param numberOfDays  number of days to fetch forecast data for
-     * @return API response containing a list of generation entries
+     * @return generation timeline of the requested days
      * @throws NoGenerationFoundExcepion if no data is found in the API response
      * @throws GenerationProviderConnectionException if there is a connection issue with the API
      */
-    private GenerationResponse fetchGenerationData(int startDayOffset, int numberOfDays) {
+    private GenerationTimeline fetchGenerationData(int startDayOffset, int numberOfDays) {
+        return generationCache.get(generationRange(startDayOffset, numberOfDays));
+    }
+
+    /**
+     * @param startDayOffset number of days from today at which the range starts
+     * @param numberOfDays  number of days in the range
+     * @return national generation range of the requested days
+     */
+    GenerationRange generationRange(int startDayOffset, int numberOfDays) {
         ZonedDateTime startUtc = timeProvider.getStartOfDay().plusDays(startDayOffset);
         ZonedDateTime endUtc = timeProvider.getEndOfDay().plusDays(startDayOffset + numberOfDays);
 
-        try {
-            GenerationResponse raw = Optional.ofNullable(
-                    carbonIntensityClient.getGenerationMix(
-                            startUtc.format(API_FORMATTER),
-                            endUtc.format(API_FORMATTER)
-                    )
-            ).orElseThrow(() -> new NoGenerationFoundExcepion("No generation data found for the requested period."));
+        return new GenerationRange(startUtc, endUtc);
+    }
 
-            List<GenerationEntry> filtered = raw.data().stream()
-                    .filter(e -> !e.from().isBefore(startUtc))
-                    .filter(e -> !e.to().isAfter(endUtc))
-                    .toList();
+    /**
+     * @return version of the data behind the three-day averages
+     */
+    public DataVersion getThreeDaysVersion() {
+        return generationCache.version(generationRange(0, 3));
+    }
+
+    /**
+     * @return version of the data behind the three-day averages if it is cached, or null if it must be loaded first
+     */
+    public DataVersion getCachedThreeDaysVersion() {
+        return generationCache.cachedVersion(generationRange(0, 3));
+    }
 
-            return new GenerationResponse(filtered);
+    /**
+     * @param hours charging window length in full hours (1-6)
+     * @return version of the data behind the optimal charging window if the window index of the current day
+     * is built, or null if it must be built first
+     * @throws IllegalArgumentException if the window length is outside the range 1-6
+     */
+    public DataVersion getCachedChargingWindowVersion(int hours) {
+        validateWindowLength(hours);
+        IndexedTimeline indexed = windowIndex.get();
+        return indexed != null && indexed.range().equals(generationRange(0, 3)) ? indexed.version() : null;
+    }
 
-        } catch (RestClientException ex) {
-            throw new GenerationProviderConnectionException("Failed to fetch data from CarbonIntensity API", ex);
-        }
+    /**
+     * Charging windows are answered from the window index, so this is the version of the data the current index
+     * was built from, which may lag behind the cache until the refresh listener replaces the index.
+     *
+     * @param hours charging window length in full hours (1-6)
+     * @return version of the data behind the optimal charging window
+     * @throws IllegalArgumentException if the window length is outside the range 1-6
+     */
+    public DataVersion getChargingWindowVersion(int hours) {
+        validateWindowLength(hours);
+        return indexedTimeline().version();
     }
 
     /**
-     * Groups generation entries by date.
+     * Cached data is refreshed on every full and half hour, so responses stay valid until the next one.
      *
-     * @param response API response containing generation entries
-     * @return a map where the key is the day (yyyy-MM-dd) and the value is the list of entries for that day
+     * @return time left until the next scheduled refresh
      */
-    private Map<String, List<GenerationEntry>> groupEntriesByDate(GenerationResponse response) {
-        return response.data().stream()
-                .collect(Collectors.groupingBy(e -> e.from().format(DAY_FORMATTER)));
+    public Duration getTimeUntilRefresh() {
+        long epochSecond = timeProvider.getInstant().getEpochSecond();
+        return Duration.ofSeconds(REFRESH_PERIOD_SECONDS - Math.floorMod(epochSecond, REFRESH_PERIOD_SECONDS));
     }
 
     /**
-     * Calculates daily averages for the grouped generation entries.
+     * Calculates daily averages from the daily totals.
      * For each day, it computes:
      *  - the average share of each energy source (all sources),
-     *  - the total clean energy percentage (sum of biomass, nuclear, hydro, wind, solar).
+     *  - the total clean energy percentage (sum of biomass, nuclear, hydro, wind, solar),
+     *  - the share of every selected fuel profile.
      *
-     * @param grouped map of generation entries grouped by date
+     * @param totals   daily totals in chronological order
+     * @param profiles fuel profiles to report
      * @return list of DTOs containing daily averages with clean energy percentage
      */
+    private List<DailyGenerationResponse> calculateDailyAverages(DailyGenerationTotals totals, ProfileSelection profiles) {
+        boolean[] cleanFuels = new boolean[totals.fuelCount()];
+        for (int f = 0; f < cleanFuels.length; f++) {
+            cleanFuels[f] = EnergySource.isClean(totals.fuel(f));
+        }
+        long[] profileMasks = profiles.fuelMasks(totals.fuelCount(), totals::fuel);
+        List<DailyGenerationResponse> result = new ArrayList<>(totals.size());
+        for (int d = 0; d < totals.size(); d++) {
+            String day = LocalDate.ofEpochDay(totals.epochDay(d)).format(DAY_FORMATTER);
+            double[] avgMix = calculateAverageMix(totals, d);
+            double cleanPerc = calculateCleanEnergy(avgMix, cleanFuels);
+            Map<String, Double> profileShares = profiles.isEmpty()
+                    ? Map.of()
+                    : profiles.toMap(calculateProfileShares(avgMix, profileMasks, profiles.size()));
+            result.add(new DailyGenerationResponse(day, toFuelMap(totals, avgMix), cleanPerc, profileShares));
+        }
+        return result;
+    }
 
-    private List<DailyGenerationResponse> calculateDailyAverages(Map<String, List<GenerationEntry>> grouped) {
-        return grouped.entrySet().stream()
-                .map(entry -> {
-                    String day = entry.getKey();
-                    Map<String, Double> avgMix = calculateAverageMix(entry.getValue());
-                    double cleanPerc = calculateCleanEnergy(avgMix);
-                    return new DailyGenerationResponse(day, avgMix, cleanPerc);
-                })
-                .sorted(Comparator.comparing(DailyGenerationResponse::date))
-                .toList();
+    /**
+     * Calculates the share of every profile from the average mix in one pass over the fuels.
+     *
+     * @param avgMix       average percentages indexed by fuel column
+     * @param profileMasks profile bitmask of every fuel column
+     * @param profileCount number of profiles
+     * @return share of each profile, indexed by profile
+     */
+    private double[] calculateProfileShares(double[] avgMix, long[] profileMasks, int profileCount) {
+        double[] shares = new double[profileCount];
+        for (int f = 0; f < avgMix.length; f++) {
+            if (profileMasks[f] != 0 && !Double.isNaN(avgMix[f])) {
+                ProfileSelection.accumulate(profileMasks[f], avgMix[f], shares);
+            }
+        }
+        return shares;
     }
 
     /**
-     * Calculates the average share of each energy source for a list of generation entries.
+     * Reads the average share of each energy source on a day from the daily totals.
+     * Intervals without a value for a fuel are not counted in that fuel's average.
      *
-     * @param entries list of generation entries
-     * @return a map where the key is the energy source and the value is the average percentage
+     * @param totals daily totals
+     * @param day    index of the day
+     * @return array indexed by fuel column holding the average percentage, or NaN if the fuel has no values
      */
-    private Map<String, Double> calculateAverageMix(List<GenerationEntry> entries) {
-        return entries.stream()
-                .flatMap(e -> e.generationmix().stream())
-                .collect(Collectors.groupingBy(
-                        GenerationEntry.FuelMix::fuel,
-                        Collectors.averagingDouble(GenerationEntry.FuelMix::perc)
-                ));
+    private double[] calculateAverageMix(DailyGenerationTotals totals, int day) {
+        double[] avgMix = new double[totals.fuelCount()];
+        for (int f = 0; f < avgMix.length; f++) {
+            avgMix[f] = totals.average(day, f);
+        }
+        return avgMix;
     }
 
     /**
      * Calculates the total clean energy percentage from the average mix of energy sources.
      * Clean energy sources are defined in the EnergySource enum.
      *
-     * @param avgMix map of energy sources and their average percentages
+     * @param avgMix     average percentages indexed by fuel column
+     * @param cleanFuels flags marking the fuel columns that are clean
      * @return total clean energy percentage as a double
      */
-    private double calculateCleanEnergy(Map<String, Double> avgMix) {
-        return avgMix.entrySet().stream()
-                .filter(e -> Arrays.stream(EnergySource.values())
-                        .anyMatch(es -> es.getFuelName().equals(e.getKey())))
-                .mapToDouble(Map.Entry::getValue)
-                .sum();
+    private double calculateCleanEnergy(double[] avgMix, boolean[] cleanFuels) {
+        double clean = 0;
+        for (int f = 0; f < avgMix.length; f++) {
+            if (cleanFuels[f] && !Double.isNaN(avgMix[f])) {
+                clean += avgMix[f];
+            }
+        }
+        return clean;
+    }
+
+    private Map<String, Double> toFuelMap(DailyGenerationTotals totals, double[] avgMix) {
+        Map<String, Double> fuelMap = new HashMap<>();
+        for (int f = 0; f < avgMix.length; f++) {
+            if (!Double.isNaN(avgMix[f])) {
+                fuelMap.put(totals.fuel(f), avgMix[f]);
+            }
+        }
+        return fuelMap;
     }
 
     /**
@@ -155,56 +309,510 @@ public class GenerationService {
      * @throws NoGenerationFoundExcepion if there is not enough data to calculate the window
      */
     public OptimalChargingWindowResponse findOptimalChargingWindow(int hours) {
-        if (hours < 1 || hours > 6) {
-            throw new IllegalArgumentException("Charging window length must be between 1 and 6 hours");
+        return findOptimalChargingWindow(hours, List.of());
+    }
+
+    /**
+     * Finds the optimal charging window and reports the average share of every requested fuel profile in it.
+     *
+     * @param hours    charging window length in full hours (1-6)
+     * @param profiles names of the fuel profiles to report, or null or empty for none
+     * @return DTO containing start time, end time, average clean energy percentage and profile shares
+     * @throws IllegalArgumentException if the window length is outside the range 1-6 or a profile is unknown
+     * @throws NoGenerationFoundExcepion if there is not enough data to calculate the window
+     */
+    public OptimalChargingWindowResponse findOptimalChargingWindow(int hours, List<String> profiles) {
+        return findOptimalChargingWindow(new ChargingWindowRequest(hours, null, null), profiles);
+    }
+
+    /**
+     * Finds the optimal charging window that starts no earlier and ends no later than the bounds of the request.
+     * Windows may start anywhere in the forecast from now on, but without an earliest start only windows
+     * from tomorrow on are considered; an earliest start in the past is moved to now, so the window returned
+     * never starts before the request. The search is answered from the window index of the current data;
+     * unbounded searches without profiles are read from its table of best windows.
+     *
+     * @param request  window length in full hours (1-6) with optional earliest start and deadline
+     * @param profiles names of the fuel profiles to report, or null or empty for none
+     * @return DTO containing start time, end time, average clean energy percentage and profile shares
+     * @throws IllegalArgumentException if the request is invalid or a profile is unknown
+     * @throws NoGenerationFoundExcepion if no window of the requested length fits between the bounds
+     */
+    public OptimalChargingWindowResponse findOptimalChargingWindow(ChargingWindowRequest request, List<String> profiles) {
+        return findVersionedOptimalChargingWindow(request, profiles).value();
+    }
+
+    /**
+     * Finds the optimal charging window like {@link #findOptimalChargingWindow(ChargingWindowRequest, List)}
+     * and returns it together with the version of the data of the window index it was read from,
+     * so a response can be labelled with a matching version.
+     *
+     * @param request  window length in full hours (1-6) with optional earliest start and deadline
+     * @param profiles names of the fuel profiles to report, or null or empty for none
+     * @return DTO of the optimal window with the version of the data behind it
+     * @throws IllegalArgumentException if the request is invalid or a profile is unknown
+     * @throws NoGenerationFoundExcepion if no window of the requested length fits between the bounds
+     */
+    public Versioned<OptimalChargingWindowResponse> findVersionedOptimalChargingWindow(ChargingWindowRequest request,
+                                                                                        List<String> profiles) {
+        validateWindowRequest(request);
+        ProfileSelection selection = fuelProfiles.select(profiles);
+
+        IndexedTimeline indexed = indexedTimeline();
+        return new Versioned<>(indexed.version(), optimalChargingWindow(indexed, request, selection));
+    }
+
+    /**
+     * Reads the best unbounded charging window of every supported length from one window index and returns them
+     * together with the version of its data, so all windows and the version describe the same data.
+     *
+     * @return best windows keyed by their length in hours, without lengths that lack the data,
+     * with the version of the data behind them
+     */
+    public Versioned<Map<Integer, OptimalChargingWindowResponse>> findVersionedBestChargingWindows() {
+        IndexedTimeline indexed = indexedTimeline();
+        Map<Integer, OptimalChargingWindowResponse> windows = new TreeMap<>();
+        for (int hours = 1; hours <= MAX_WINDOW_HOURS; hours++) {
+            OptimalChargingWindowResponse bestWindow = indexed.bestWindows().get(hours - 1);
+            if (bestWindow != null) {
+                windows.put(hours, bestWindow);
+            }
         }
+        return new Versioned<>(indexed.version(), windows);
+    }
 
-        GenerationResponse response = fetchGenerationData(1, 2);
-        List<GenerationEntry> entries = response.data();
+    private OptimalChargingWindowResponse optimalChargingWindow(IndexedTimeline indexed, ChargingWindowRequest request,
+                                                                ProfileSelection selection) {
+        if (request.earliestStart() == null && request.deadline() == null && selection.isEmpty()) {
+            OptimalChargingWindowResponse bestWindow = indexed.bestWindows().get(request.hours() - 1);
+            if (bestWindow == null) {
+                throw new NoGenerationFoundExcepion("Not enough data to calculate the optimal window");
+            }
+            return bestWindow;
+        }
 
+        long now = timeProvider.getInstant().getEpochSecond();
+        return windowSearchTimer.record(() -> {
+            int windowSize = request.hours() * 2;
+            int bestStartIndex = indexed.findBestWindow(request, now);
+            if (bestStartIndex < 0) {
+                throw new NoGenerationFoundExcepion("Not enough data to calculate the optimal window");
+            }
+            return windowResponse(indexed.timeline(), bestStartIndex, windowSize,
+                    indexed.index().averageOf(bestStartIndex, windowSize), selection);
+        });
+    }
+
+    /**
+     * Finds the window of the given length with the highest average clean energy share in a timeline.
+     *
+     * @param timeline generation timeline
+     * @param hours    charging window length in full hours
+     * @return DTO containing start time, end time, and average clean energy percentage
+     * @throws NoGenerationFoundExcepion if the timeline is shorter than the window
+     */
+    OptimalChargingWindowResponse optimalWindow(GenerationTimeline timeline, int hours) {
+        return optimalWindow(timeline, hours, fuelProfiles.select(List.of()));
+    }
+
+    private OptimalChargingWindowResponse optimalWindow(GenerationTimeline timeline, int hours, ProfileSelection profiles) {
         int windowSize = hours * 2;
-        if (entries.size() < windowSize) {
+        if (timeline.size() < windowSize) {
             throw new NoGenerationFoundExcepion("Not enough data to calculate the optimal window");
         }
 
-        double maxAverage = -1;
-        int bestStartIndex = 0;
+        return windowSearchTimer.record(() -> {
+            CleanEnergyWindowSearch windowSearch = new CleanEnergyWindowSearch(cleanShares(timeline));
+            int bestStartIndex = windowSearch.findBestWindow(windowSize);
+
+            return windowResponse(timeline, bestStartIndex, windowSize,
+                    windowSearch.averageOf(bestStartIndex, windowSize), profiles);
+        });
+    }
 
-        for (int i = 0; i <= entries.size() - windowSize; i++) {
-            List<GenerationEntry> windowEntries = entries.subList(i, i + windowSize);
-            double avgClean = windowEntries.stream()
-                    .mapToDouble(entry -> cleanEnergyStream(entry)
-                            .mapToDouble(GenerationEntry.FuelMix::perc)
-                            .sum())
-                    .average()
-                    .orElse(0.0);
+    /**
+     * Finds the best charging windows of a given length, ranked by their average clean energy share,
+     * so that a client whose first choice is unavailable can fall back to the next one without another request.
+     * All windows are scored in a single pass over the clean energy prefix sums.
+     *
+     * @param hours        charging window length in full hours (1-6)
+     * @param count        maximum number of windows to return (1-10)
+     * @param allowOverlap whether returned windows may share intervals
+     * @param profiles     names of the fuel profiles to report, or null or empty for none
+     * @return DTOs of the windows from the best to the worst, fewer than requested if not enough windows fit
+     * @throws IllegalArgumentException if the window length or count is out of range or a profile is unknown
+     * @throws NoGenerationFoundExcepion if there is not enough data to calculate a window
+     */
+    public List<OptimalChargingWindowResponse> findTopChargingWindows(int hours, int count, boolean allowOverlap,
+                                                                      List<String> profiles) {
+        return findVersionedTopChargingWindows(hours, count, allowOverlap, profiles).value();
+    }
 
-            if (avgClean > maxAverage) {
-                maxAverage = avgClean;
-                bestStartIndex = i;
-            }
+    /**
+     * Finds the best charging windows like {@link #findTopChargingWindows(int, int, boolean, List)} and returns
+     * them together with the version of the data of the window index they were read from.
+     *
+     * @param hours        charging window length in full hours (1-6)
+     * @param count        maximum number of windows to return (1-10)
+     * @param allowOverlap whether returned windows may share intervals
+     * @param profiles     names of the fuel profiles to report, or null or empty for none
+     * @return DTOs of the windows from the best to the worst with the version of the data behind them
+     * @throws IllegalArgumentException if the window length or count is out of range or a profile is unknown
+     * @throws NoGenerationFoundExcepion if there is not enough data to calculate a window
+     */
+    public Versioned<List<OptimalChargingWindowResponse>> findVersionedTopChargingWindows(int hours, int count,
+                                                                                          boolean allowOverlap,
+                                                                                          List<String> profiles) {
+        validateWindowLength(hours);
+        if (count < 1 || count > MAX_TOP_WINDOWS) {
+            throw new IllegalArgumentException("Number of charging windows must be between 1 and " + MAX_TOP_WINDOWS);
         }
+        ProfileSelection selection = fuelProfiles.select(profiles);
 
-        GenerationEntry startEntry = entries.get(bestStartIndex);
-        GenerationEntry endEntry = entries.get(bestStartIndex + windowSize - 1);
+        IndexedTimeline indexed = indexedTimeline();
+        GenerationTimeline timeline = indexed.timeline();
+        int windowSize = hours * 2;
 
+        return new Versioned<>(indexed.version(), windowSearchTimer.record(() -> {
+            CleanEnergyWindowSearch windowSearch = indexed.index().search();
+            int[] startIndexes = windowSearch.findBestWindows(windowSize, count, allowOverlap ? 1 : windowSize,
+                    indexed.tomorrowIndex(), timeline.size());
+            if (startIndexes.length == 0) {
+                throw new NoGenerationFoundExcepion("Not enough data to calculate the optimal window");
+            }
+
+            List<OptimalChargingWindowResponse> result = new ArrayList<>(startIndexes.length);
+            for (int startIndex : startIndexes) {
+                result.add(windowResponse(timeline, startIndex, windowSize,
+                        windowSearch.averageOf(startIndex, windowSize), selection));
+            }
+            return result;
+        }));
+    }
+
+    private OptimalChargingWindowResponse windowResponse(GenerationTimeline timeline, int startIndex, int windowSize,
+                                                         double average, ProfileSelection profiles) {
         return new OptimalChargingWindowResponse(
-                startEntry.from(),
-                endEntry.to(),
-                maxAverage
+                timeline.startTime(startIndex),
+                timeline.endTime(startIndex + windowSize - 1),
+                average,
+                profiles.isEmpty()
+                        ? Map.of()
+                        : profiles.toMap(windowProfileShares(timeline, startIndex, windowSize, profiles))
         );
     }
 
     /**
-     * Returns a stream of clean energy fuel mixes from a single generation entry.
-     * Filters out only the fuels that are considered clean according to the EnergySource enum.
+     * Calculates the average share of every profile over a window, going over each fuel column
+     * of the window once and adding its values to all profiles that count the fuel.
      *
-     * @param entry a generation entry containing fuel mix information
-     * @return a Stream of FuelMix objects representing clean energy sources
+     * @param timeline   generation timeline
+     * @param startIndex index of the first interval of the window
+     * @param windowSize number of intervals in the window
+     * @param profiles   fuel profiles to report
+     * @return average share of each profile, indexed by profile
      */
-    private Stream<GenerationEntry.FuelMix> cleanEnergyStream(GenerationEntry entry) {
-        return entry.generationmix().stream()
-                .filter(f -> Arrays.stream(EnergySource.values())
-                        .anyMatch(es -> es.getFuelName().equals(f.fuel())));
+    private double[] windowProfileShares(GenerationTimeline timeline, int startIndex, int windowSize,
+                                         ProfileSelection profiles) {
+        long[] profileMasks = profiles.fuelMasks(timeline.fuelCount(), timeline::fuel);
+        double[] shares = new double[profiles.size()];
+        for (int f = 0; f < profileMasks.length; f++) {
+            if (profileMasks[f] == 0) {
+                continue;
+            }
+            for (int i = startIndex; i < startIndex + windowSize; i++) {
+                double perc = timeline.percentage(f, i);
+                if (!Double.isNaN(perc)) {
+                    ProfileSelection.accumulate(profileMasks[f], perc, shares);
+                }
+            }
+        }
+        for (int p = 0; p < shares.length; p++) {
+            shares[p] /= windowSize;
+        }
+        return shares;
+    }
+
+    /**
+     * Finds the optimal charging window for every request of a batch. All requests are answered
+     * from the window index of the current data, each in constant time regardless of its earliest start and deadline.
+     * A request whose window does not fit between its bounds gets an error entry instead of failing the whole batch.
+     *
+     * @param requests charging requests with the window length and optional earliest start and deadline
+     * @return DTOs with the optimal window or the error of each request, in the order of the requests
+     * @throws IllegalArgumentException if the batch is empty or a request is invalid
+     * @throws NoGenerationFoundExcepion if no generation data is available at all
+     */
+    public List<ChargingWindowBatchItemResponse> findOptimalChargingWindows(List<ChargingWindowRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one charging request is required");
+        }
+        for (ChargingWindowRequest request : requests) {
+            validateWindowRequest(request);
+        }
+
+        IndexedTimeline indexed = indexedTimeline();
+        GenerationTimeline timeline = indexed.timeline();
+        long now = timeProvider.getInstant().getEpochSecond();
+
+        return windowSearchTimer.record(() -> {
+            List<ChargingWindowBatchItemResponse> result = new ArrayList<>(requests.size());
+            for (ChargingWindowRequest request : requests) {
+                int windowSize = request.hours() * 2;
+                int bestStartIndex = indexed.findBestWindow(request, now);
+                if (bestStartIndex < 0) {
+                    result.add(ChargingWindowBatchItemResponse.failed("Not enough data to calculate the optimal window"));
+                    continue;
+                }
+
+                result.add(ChargingWindowBatchItemResponse.of(new OptimalChargingWindowResponse(
+                        timeline.startTime(bestStartIndex),
+                        timeline.endTime(bestStartIndex + windowSize - 1),
+                        indexed.index().averageOf(bestStartIndex, windowSize)
+                )));
+            }
+            return result;
+        });
+    }
+
+    private void validateWindowRequest(ChargingWindowRequest request) {
+        validateWindowLength(request.hours());
+        if (request.earliestStart() != null && request.deadline() != null
+                && !request.earliestStart().isBefore(request.deadline())) {
+            throw new IllegalArgumentException("Earliest start must be before the deadline");
+        }
+    }
+
+    /**
+     * Returns the forecast from today on together with its window index. Once built for the current day,
+     * the index is served without going to the cache; the refresh listener replaces it when new data arrives,
+     * so a request never waits for a reload of an expired range.
+     *
+     * @return indexed timeline of the current data
+     */
+    private IndexedTimeline indexedTimeline() {
+        GenerationRange range = generationRange(0, 3);
+        IndexedTimeline indexed = windowIndex.get();
+        if (indexed != null && indexed.range().equals(range)) {
+            return indexed;
+        }
+        return updateWindowIndex(range);
+    }
+
+    /**
+     * Builds the index of the timeline cached for the range unless the current index was built from it.
+     * The index is only replaced if nobody replaced it since it was read, otherwise the attempt is repeated
+     * against the newer index, so an index built from an older timeline never overwrites a newer one.
+     */
+    private IndexedTimeline updateWindowIndex(GenerationRange range) {
+        while (true) {
+            IndexedTimeline current = windowIndex.get();
+            Versioned<GenerationTimeline> timeline = generationCache.getVersioned(range);
+            if (current != null && current.timeline() == timeline.value()) {
+                return current;
+            }
+            IndexedTimeline updated = windowIndexTimer.record(
+                    () -> indexTimeline(range, timeline.value(), timeline.version()));
+            if (windowIndex.compareAndSet(current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Builds the window index of a timeline and reads the best unbounded window of every supported length
+     * from it, so the prefix sums of the clean energy shares are calculated once for all lengths.
+     */
+    private IndexedTimeline indexTimeline(GenerationRange range, GenerationTimeline timeline, DataVersion version) {
+        CleanEnergyWindowIndex index = new CleanEnergyWindowIndex(
+                new CleanEnergyWindowSearch(cleanShares(timeline)), MAX_WINDOW_SIZE);
+        int tomorrowIndex = timeline.firstIndexStartingAtOrAfter(range.from().plusDays(1).toEpochSecond());
+
+        OptimalChargingWindowResponse[] bestWindows = new OptimalChargingWindowResponse[MAX_WINDOW_HOURS];
+        for (int hours = 1; hours <= MAX_WINDOW_HOURS; hours++) {
+            int windowSize = hours * 2;
+            int bestStartIndex = index.findBestWindow(windowSize, tomorrowIndex, timeline.size());
+            if (bestStartIndex >= 0) {
+                bestWindows[hours - 1] = new OptimalChargingWindowResponse(
+                        timeline.startTime(bestStartIndex),
+                        timeline.endTime(bestStartIndex + windowSize - 1),
+                        index.averageOf(bestStartIndex, windowSize)
+                );
+            }
+        }
+        return new IndexedTimeline(range, timeline, version, index, tomorrowIndex,
+                Collections.unmodifiableList(Arrays.asList(bestWindows)));
+    }
+
+    /**
+     * Rebuilds the window index after a scheduled refresh, so window requests are answered from a table
+     * that is already prepared. Nothing is loaded while no window has been requested yet.
+     */
+    private void prepareWindowIndex() {
+        if (windowIndex.get() != null) {
+            updateWindowIndex(generationRange(0, 3));
+        }
+    }
+
+    /**
+     * Schedules the charging of a fleet over the coming intervals so that as much of the fleet's energy
+     * as possible comes from clean sources without exceeding the power capacity of the site.
+     * Vehicles without an availability start are available from now, vehicles without a deadline
+     * until the end of the forecast.
+     *
+     * @param request site capacity and the charging demand of every vehicle
+     * @return charging slots of every vehicle with the energy scheduled and its clean energy share
+     * @throws IllegalArgumentException if the capacity, the fleet or a vehicle is invalid
+     */
+    public FleetScheduleResponse scheduleFleetCharging(FleetScheduleRequest request) {
+        validateFleet(request);
+
+        GenerationTimeline timeline = fetchGenerationData(0, 3);
+        long now = timeProvider.getInstant().getEpochSecond();
+
+        return fleetScheduleTimer.record(() -> {
+            List<VehicleDemand> demands = new ArrayList<>(request.vehicles().size());
+            for (VehicleChargingRequest vehicle : request.vehicles()) {
+                demands.add(new VehicleDemand(
+                        vehicle.energyKwh(),
+                        vehicle.maxChargeRateKw(),
+                        vehicle.availableFrom() == null ? now : Math.max(now, vehicle.availableFrom().toEpochSecond()),
+                        vehicle.deadline() == null ? Long.MAX_VALUE : vehicle.deadline().toEpochSecond()
+                ));
+            }
+
+            double[] cleanShares = cleanShares(timeline);
+            double[][] power = new FleetChargingScheduler(timeline, cleanShares, request.siteCapacityKw())
+                    .schedule(demands);
+
+            List<VehicleScheduleResponse> vehicles = new ArrayList<>(power.length);
+            double fleetEnergy = 0;
+            double fleetCleanEnergy = 0;
+            for (int v = 0; v < power.length; v++) {
+                List<ChargingSlotResponse> slots = new ArrayList<>();
+                double energy = 0;
+                double cleanEnergy = 0;
+                for (int i = 0; i < power[v].length; i++) {
+                    if (power[v][i] <= 0) {
+                        continue;
+                    }
+                    double slotEnergy = power[v][i] * (timeline.end(i) - timeline.start(i)) / SECONDS_PER_HOUR;
+                    energy += slotEnergy;
+                    cleanEnergy += slotEnergy * cleanShares[i];
+                    slots.add(new ChargingSlotResponse(timeline.startTime(i), timeline.endTime(i), power[v][i]));
+                }
+                fleetEnergy += energy;
+                fleetCleanEnergy += cleanEnergy;
+                vehicles.add(new VehicleScheduleResponse(
+                        request.vehicles().get(v).vehicleId(),
+                        energy,
+                        energy == 0 ? 0 : cleanEnergy / energy,
+                        slots
+                ));
+            }
+            return new FleetScheduleResponse(
+                    fleetEnergy,
+                    fleetEnergy == 0 ? 0 : fleetCleanEnergy / fleetEnergy,
+                    vehicles
+            );
+        });
+    }
+
+    private void validateFleet(FleetScheduleRequest request) {
+        if (request.siteCapacityKw() <= 0) {
+            throw new IllegalArgumentException("Site capacity must be greater than 0 kW");
+        }
+        if (request.vehicles() == null || request.vehicles().isEmpty()) {
+            throw new IllegalArgumentException("At least one vehicle is required");
+        }
+        for (VehicleChargingRequest vehicle : request.vehicles()) {
+            if (vehicle.energyKwh() <= 0 || vehicle.maxChargeRateKw() <= 0) {
+                throw new IllegalArgumentException("Vehicle energy need and charge rate must be greater than 0");
+            }
+            if (vehicle.availableFrom() != null && vehicle.deadline() != null
+                    && !vehicle.availableFrom().isBefore(vehicle.deadline())) {
+                throw new IllegalArgumentException("Vehicle availability must start before its deadline");
+            }
+        }
+    }
+
+    /**
+     * Forecast timeline with the window index over its clean energy shares.
+     *
+     * @param range         range the timeline was loaded for
+     * @param timeline      forecast from the start of today
+     * @param version       version of the timeline, which labels every response read from the index
+     * @param index         window index over the whole timeline
+     * @param tomorrowIndex index of the first interval of tomorrow, where unbounded searches start
+     * @param bestWindows   unmodifiable list of the best unbounded window indexed by length in hours - 1,
+     *                      holding null where no window of the length fits
+     */
+    private record IndexedTimeline(GenerationRange range, GenerationTimeline timeline, DataVersion version,
+                                   CleanEnergyWindowIndex index, int tomorrowIndex,
+                                   List<OptimalChargingWindowResponse> bestWindows) {
+
+        /**
+         * @param now current time in epoch seconds, before which no window may start
+         * @return start index of the best window within the bounds of the request, or -1 if none fits
+         */
+        private int findBestWindow(ChargingWindowRequest request, long now) {
+            int fromIndex = request.earliestStart() == null
+                    ? tomorrowIndex
+                    : timeline.firstIndexStartingAtOrAfter(request.earliestStart().toEpochSecond());
+            fromIndex = Math.max(fromIndex, timeline.firstIndexStartingAtOrAfter(now));
+            int toIndex = request.deadline() == null
+                    ? timeline.size()
+                    : timeline.firstIndexEndingAfter(request.deadline().toEpochSecond());
+            return index.findBestWindow(request.hours() * 2, fromIndex, toIndex);
+        }
+    }
+
+    void validateWindowLength(int hours) {
+        if (hours < 1 || hours > MAX_WINDOW_HOURS) {
+            throw new IllegalArgumentException("Charging window length must be between 1 and 6 hours");
+        }
+    }
+
+    /**
+     * Calculates the clean energy percentage of every interval by adding up the clean fuel columns.
+     * Clean energy sources are defined in the EnergySource enum.
+     *
+     * @param timeline generation timeline
+     * @return array with the clean energy percentage of each interval
+     */
+    private double[] cleanShares(GenerationTimeline timeline) {
+        boolean[] cleanFuels = cleanFuels(timeline);
+        double[] cleanShares = new double[timeline.size()];
+        for (int f = 0; f < cleanFuels.length; f++) {
+            if (!cleanFuels[f]) {
+                continue;
+            }
+            for (int i = 0; i < cleanShares.length; i++) {
+                double perc = timeline.percentage(f, i);
+                if (!Double.isNaN(perc)) {
+                    cleanShares[i] += perc;
+                }
+            }
+        }
+        return cleanShares;
+    }
+
+    /**
+     * @param timeline generation timeline
+     * @return flags indexed by fuel column marking the clean energy sources
+     */
+    private boolean[] cleanFuels(GenerationTimeline timeline) {
+        boolean[] cleanFuels = new boolean[timeline.fuelCount()];
+        for (int f = 0; f < cleanFuels.length; f++) {
+            cleanFuels[f] = EnergySource.isClean(timeline.fuel(f));
+        }
+        return cleanFuels;
+    }
+
+    private static Timer aggregationTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("generation.aggregation")
+                .description("Time spent aggregating cached generation data")
+                .tag("phase", phase)
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,251 @@
+package org.codibly.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.codibly.config.GenerationStreamProperties;
+import org.codibly.dto.response.DailyGenerationResponse;
+import org.codibly.dto.response.GenerationUpdateResponse;
+import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes the three-day averages and the best charging window of every length to subscribed clients
+ * as Server-Sent Events whenever a scheduled cache refresh brings new data.
+ * Each update is serialized once, in the refresh listener, into a single event that is written to every
+ * subscriber as is. Every subscriber has its own serial sender on a virtual thread, so a slow client
+ * does not delay the others and receives its events in order.
+ * New subscribers receive the latest update straight away, and idle streams get a comment
+ * as a heartbeat so that proxies keep them open between refreshes.
+ */
+@Slf4j
+@Component
+public class GenerationUpdateBroadcaster {
+
+    static final String EVENT_NAME = "generation-update";
+
+    private static final int MIN_WINDOW_HOURS = 1;
+
+    private final GenerationService generationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService upstreamExecutor;
+
+    private final long timeoutMillis;
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            Collections.unmodifiableSet(SseEmitter.event().comment("heartbeat").build());
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private final AtomicReference<Update> latest = new AtomicReference<>();
+
+    private final Lock updateLock = new ReentrantLock();
+
+    public GenerationUpdateBroadcaster(GenerationService generationService,
+                                       GenerationCache generationCache,
+                                       ObjectMapper objectMapper,
+                                       GenerationStreamProperties properties,
+                                       @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor,
+                                       MeterRegistry meterRegistry) {
+        this.generationService = generationService;
+        this.objectMapper = objectMapper;
+        this.upstreamExecutor = upstreamExecutor;
+        this.timeoutMillis = properties.timeout().toMillis();
+        generationCache.addRefreshListener(this::publishIfChanged);
+
+        Gauge.builder("generation.stream.subscribers", subscribers, Set::size)
+                .description("Clients subscribed to the generation update stream")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription and sends it the latest update. Until the first update is prepared,
+     * it is prepared in the background and sent to every subscriber once ready,
+     * so subscribing never waits for the data to load.
+     *
+     * @return emitter of the subscription
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        Update update = latest.get();
+        if (update != null) {
+            subscriber.enqueue(update.event());
+        } else {
+            upstreamExecutor.execute(this::publishIfChanged);
+        }
+        return emitter;
+    }
+
+    /**
+     * Prepares an update from the cached data and sends it to every subscriber if its data versions differ
+     * from the last update sent. Subscribers are only notified once per change of the data.
+     * Runs after every scheduled refresh; concurrent calls prepare the update one at a time.
+     */
+    public void publishIfChanged() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Update update;
+        updateLock.lock();
+        try {
+            update = prepareUpdate();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to prepare generation update: {}", ex.getMessage());
+            return;
+        } finally {
+            updateLock.unlock();
+        }
+        if (update == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(update.event());
+        }
+    }
+
+    /**
+     * Sends a comment to every subscriber, so that proxies do not close streams that stay idle between refreshes.
+     */
+    @Scheduled(fixedDelayString = "${generation.stream.heartbeat:PT15S}")
+    public void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(HEARTBEAT);
+        }
+    }
+
+    /**
+     * @return number of open subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Serializes the current data into an event, unless the last update already holds the same versions.
+     * The versions are checked first so unchanged data is not read again, but the event is labelled with
+     * the versions returned together with its data, so a reload in between cannot mismatch the two.
+     *
+     * @return new update, or null if the data has not changed
+     */
+    private Update prepareUpdate() {
+        if (isLatest(generationService.getThreeDaysVersion(),
+                generationService.getChargingWindowVersion(MIN_WINDOW_HOURS))) {
+            return null;
+        }
+        Versioned<List<DailyGenerationResponse>> threeDays = generationService.getVersionedThreeDaysAverage(List.of());
+        Versioned<Map<Integer, OptimalChargingWindowResponse>> windows =
+                generationService.findVersionedBestChargingWindows();
+        if (isLatest(threeDays.version(), windows.version())) {
+            return null;
+        }
+        GenerationUpdateResponse body = new GenerationUpdateResponse(threeDays.value(), windows.value());
+
+        long threeDaysHash = threeDays.version().hash();
+        long windowHash = windows.version().hash();
+        Set<ResponseBodyEmitter.DataWithMediaType> event = Collections.unmodifiableSet(SseEmitter.event()
+                .id(Long.toHexString(threeDaysHash) + "-" + Long.toHexString(windowHash))
+                .name(EVENT_NAME)
+                .data(toJson(body), MediaType.APPLICATION_JSON)
+                .build());
+        Update update = new Update(threeDaysHash, windowHash, event);
+        latest.set(update);
+        return update;
+    }
+
+    private boolean isLatest(DataVersion threeDaysVersion, DataVersion windowVersion) {
+        Update previous = latest.get();
+        return previous != null && previous.threeDaysHash() == threeDaysVersion.hash()
+                && previous.windowHash() == windowVersion.hash();
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize generation update", ex);
+        }
+    }
+
+    /**
+     * Serialized update together with the data versions it was prepared from.
+     */
+    private record Update(long threeDaysHash, long windowHash, Set<ResponseBodyEmitter.DataWithMediaType> event) {}
+
+    /**
+     * Subscription with its queue of events. At most one task drains the queue at a time,
+     * so events reach the client in the order they were queued.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            pending.add(event);
+            if (sending.compareAndSet(false, true)) {
+                upstreamExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while ((event = pending.poll()) != null) {
+                    if (!send(event)) {
+                        pending.clear();
+                        return;
+                    }
+                }
+                sending.set(false);
+                // an event queued after the last poll but before the flag was cleared is sent by this task
+            } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+        }
+
+        private boolean send(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException ex) {
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+                return false;
+            }
+        }
+    }
+}
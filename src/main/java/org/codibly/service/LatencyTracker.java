@@ -0,0 +1,43 @@
+package org.codibly.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent calls in a fixed-size ring buffer to estimate their percentiles.
+ */
+class LatencyTracker {
+
+    private final long[] samples;
+
+    private int next;
+
+    private int count;
+
+    LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * @param percentile percentile between 0 and 1
+     * @return latency below which the given share of recent calls finished, or zero if nothing was recorded
+     */
+    Duration percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, count);
+        }
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        Arrays.sort(sorted);
+        int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+        return Duration.ofNanos(sorted[index]);
+    }
+}
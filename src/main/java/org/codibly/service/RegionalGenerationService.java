@@ -0,0 +1,131 @@
+package org.codibly.service;
+
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.dto.response.RegionalChargingWindowResponse;
+import org.codibly.dto.response.RegionalGenerationResponse;
+import org.codibly.exception.GenerationProviderConnectionException;
+import org.codibly.exception.NoGenerationFoundExcepion;
+import org.codibly.model.GenerationRange;
+import org.codibly.model.Region;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Serves generation averages and charging windows per region of Great Britain.
+ * Every region is loaded through the shared cache and aggregated on its own virtual thread,
+ * so a multi-region response takes about as long as the slowest single region.
+ * At most the configured fetch concurrency of regions are loaded at the same time across all requests,
+ * so a request for every region does not flood the upstream API.
+ */
+@Service
+public class RegionalGenerationService {
+
+    private final GenerationService generationService;
+
+    private final GenerationCache generationCache;
+
+    private final ExecutorService upstreamExecutor;
+
+    private final Semaphore regionPermits;
+
+    public RegionalGenerationService(GenerationService generationService,
+                                     GenerationCache generationCache,
+                                     GenerationFetchProperties properties,
+                                     @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor) {
+        this.generationService = generationService;
+        this.generationCache = generationCache;
+        this.upstreamExecutor = upstreamExecutor;
+        // separate from the chunk permits of the loader: a region holding a chunk permit
+        // while waiting for the chunks of its own range could otherwise starve them
+        this.regionPermits = new Semaphore(properties.maxConcurrency());
+    }
+
+    /**
+     * Calculates the three-day averages of every requested region.
+     *
+     * @param regionIds ids of the regions, or null or empty for all regions
+     * @return future of the daily averages of every region, in the order of the requested ids
+     * @throws IllegalArgumentException if a region id is unknown
+     */
+    public CompletableFuture<List<RegionalGenerationResponse>> getThreeDaysAverage(List<Integer> regionIds) {
+        List<Region> regions = resolveRegions(regionIds);
+        GenerationRange range = generationService.generationRange(0, 3);
+
+        return fanOut(regions, region -> new RegionalGenerationResponse(
+                region.getId(),
+                region.getShortName(),
+                generationService.dailyAverages(generationCache.getDailyTotals(range.forRegion(region)))
+        ));
+    }
+
+    /**
+     * Finds the optimal charging window of every requested region.
+     *
+     * @param hours     charging window length in full hours (1-6)
+     * @param regionIds ids of the regions, or null or empty for all regions
+     * @return future of the optimal window of every region, in the order of the requested ids;
+     * it fails with {@link NoGenerationFoundExcepion} or {@link GenerationProviderConnectionException}
+     * if the window of a region cannot be calculated
+     * @throws IllegalArgumentException if the window length is outside the range 1-6 or a region id is unknown
+     */
+    public CompletableFuture<List<RegionalChargingWindowResponse>> findOptimalChargingWindow(int hours,
+                                                                                              List<Integer> regionIds) {
+        generationService.validateWindowLength(hours);
+        List<Region> regions = resolveRegions(regionIds);
+        GenerationRange range = generationService.generationRange(1, 2);
+
+        return fanOut(regions, region -> new RegionalChargingWindowResponse(
+                region.getId(),
+                region.getShortName(),
+                generationService.optimalWindow(generationCache.get(range.forRegion(region)), hours)
+        ));
+    }
+
+    /**
+     * Loads and aggregates the range of every region concurrently, bounded by the region permits,
+     * and collects the results in order.
+     */
+    private <T> CompletableFuture<List<T>> fanOut(List<Region> regions, Function<Region, T> aggregation) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            futures.add(CompletableFuture.supplyAsync(() -> applyWithPermit(region, aggregation), upstreamExecutor));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    private <T> T applyWithPermit(Region region, Function<Region, T> aggregation) {
+        try {
+            regionPermits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to load region " + region.getShortName(), ex);
+        }
+        try {
+            return aggregation.apply(region);
+        } finally {
+            regionPermits.release();
+        }
+    }
+
+    private static List<Region> resolveRegions(List<Integer> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return Arrays.asList(Region.values());
+        }
+        Set<Region> regions = new LinkedHashSet<>();
+        for (Integer regionId : regionIds) {
+            regions.add(Region.fromId(regionId));
+        }
+        return List.copyOf(regions);
+    }
+}
@@ -0,0 +1,14 @@
+package org.codibly.service;
+
+/**
+ * Response body serialized once for a data version.
+ *
+ * @param version data version the body was rendered from
+ * @param json    JSON body
+ * @param gzip    gzip-compressed JSON body
+ */
+public record RenderedResponse(
+        DataVersion version,
+        byte[] json,
+        byte[] gzip
+) {}
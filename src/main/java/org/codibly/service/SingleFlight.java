@@ -0,0 +1,82 @@
+package org.codibly.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent calls for the same key. The first caller runs the call,
+ * callers arriving while it is still in flight wait for it and receive the same result or exception.
+ *
+ * @param <K> key identifying identical calls
+ * @param <V> result type of the call
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executedCalls = new LongAdder();
+
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    /**
+     * Runs the call for the given key unless an identical call is already in flight,
+     * in which case it waits for that call and returns its result.
+     *
+     * @param key  key identifying identical calls
+     * @param call call to run
+     * @return result of the call
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalescedCalls.increment();
+            return await(existing);
+        }
+
+        executedCalls.increment();
+        try {
+            V value = call.get();
+            own.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            // complete on errors too, otherwise the callers waiting for this call would never return
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * @return number of calls that actually ran
+     */
+    public long getExecutedCalls() {
+        return executedCalls.sum();
+    }
+
+    /**
+     * @return number of calls that were served by a call already in flight
+     */
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
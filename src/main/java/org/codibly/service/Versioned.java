@@ -0,0 +1,13 @@
+package org.codibly.service;
+
+/**
+ * Value derived from a cached generation timeline together with the version of the timeline it was derived from.
+ *
+ * @param version version of the data behind the value
+ * @param value   derived value
+ * @param <T>     type of the value
+ */
+public record Versioned<T>(
+        DataVersion version,
+        T value
+) {}
@@ -0,0 +1,72 @@
+package org.codibly.service.profile;
+
+import org.codibly.config.FuelProfileProperties;
+import org.codibly.model.EnergySource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the named fuel-classification profiles: the built-in {@code clean} profile
+ * defined by {@link EnergySource} and every profile configured under {@code generation.fuel-profiles}.
+ */
+@Component
+public class FuelProfiles {
+
+    public static final String CLEAN = "clean";
+
+    private final Map<String, Set<String>> profiles = new LinkedHashMap<>();
+
+    public FuelProfiles(FuelProfileProperties properties) {
+        profiles.put(CLEAN, Arrays.stream(EnergySource.values())
+                .map(EnergySource::getFuelName)
+                .collect(Collectors.toUnmodifiableSet()));
+        if (properties.fuelProfiles() != null) {
+            properties.fuelProfiles().forEach((name, fuels) -> {
+                if (profiles.putIfAbsent(name, Set.copyOf(fuels)) != null) {
+                    throw new IllegalArgumentException("Fuel profile " + name + " is built in and cannot be configured");
+                }
+            });
+        }
+    }
+
+    /**
+     * @return names of all profiles, starting with the built-in one
+     */
+    public List<String> names() {
+        return List.copyOf(profiles.keySet());
+    }
+
+    /**
+     * Compiles the requested profiles into a selection that computes their shares in a single pass.
+     *
+     * @param names names of the requested profiles, or null or empty for none
+     * @return selection of the profiles in the requested order, without duplicates
+     * @throws IllegalArgumentException if a profile is unknown or more than 64 profiles are requested
+     */
+    public ProfileSelection select(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return ProfileSelection.NONE;
+        }
+        Set<String> unique = new LinkedHashSet<>(names);
+        if (unique.size() > ProfileSelection.MAX_PROFILES) {
+            throw new IllegalArgumentException("At most " + ProfileSelection.MAX_PROFILES + " fuel profiles can be requested");
+        }
+        List<Set<String>> fuels = new ArrayList<>(unique.size());
+        for (String name : unique) {
+            Set<String> profile = profiles.get(name);
+            if (profile == null) {
+                throw new IllegalArgumentException("Unknown fuel profile: " + name);
+            }
+            fuels.add(profile);
+        }
+        return new ProfileSelection(List.copyOf(unique), fuels);
+    }
+}
@@ -0,0 +1,83 @@
+package org.codibly.service.profile;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Fuel profiles requested together, compiled into one bitmask per fuel column with a bit for every profile
+ * that counts the fuel. The shares of all profiles are then summed in the same pass over the data:
+ * each value is added once to every profile whose bit is set, and fuels outside all profiles are skipped.
+ */
+public final class ProfileSelection {
+
+    static final int MAX_PROFILES = Long.SIZE;
+
+    static final ProfileSelection NONE = new ProfileSelection(List.of(), List.of());
+
+    private final List<String> names;
+
+    private final List<Set<String>> fuels;
+
+    ProfileSelection(List<String> names, List<Set<String>> fuels) {
+        this.names = names;
+        this.fuels = fuels;
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    /**
+     * @return number of selected profiles
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @param fuelCount number of fuel columns
+     * @param fuelNames name of each fuel column
+     * @return bitmask per fuel column, where bit p is set if profile p counts the fuel
+     */
+    public long[] fuelMasks(int fuelCount, IntFunction<String> fuelNames) {
+        long[] masks = new long[fuelCount];
+        for (int f = 0; f < fuelCount; f++) {
+            String fuel = fuelNames.apply(f);
+            for (int p = 0; p < fuels.size(); p++) {
+                if (fuels.get(p).contains(fuel)) {
+                    masks[f] |= 1L << p;
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Adds a fuel value to the share of every profile in the mask.
+     *
+     * @param mask   bitmask of the fuel column
+     * @param perc   percentage of the fuel
+     * @param shares running shares indexed by profile
+     */
+    public static void accumulate(long mask, double perc, double[] shares) {
+        while (mask != 0) {
+            shares[Long.numberOfTrailingZeros(mask)] += perc;
+            mask &= mask - 1;
+        }
+    }
+
+    /**
+     * @param shares shares indexed by profile
+     * @return shares keyed by profile name
+     */
+    public Map<String, Double> toMap(double[] shares) {
+        Map<String, Double> result = new HashMap<>();
+        for (int p = 0; p < names.size(); p++) {
+            result.put(names.get(p), shares[p]);
+        }
+        return result;
+    }
+}
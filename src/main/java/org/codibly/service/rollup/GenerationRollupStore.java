@@ -0,0 +1,270 @@
+package org.codibly.service.rollup;
+
+import org.codibly.history.GenerationHistoryStore;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.model.RollupResolution;
+import org.codibly.service.GenerationDataLoader;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Pre-aggregated national generation data at every {@link RollupResolution}: the sum of the percentages
+ * and the number of values of every fuel per bucket, kept up to date as chunks are loaded.
+ * When the history store is enabled, the rollups start from all intervals it holds.
+ * <p>
+ * Recent intervals are remembered by their start, so an interval loaded again only changes
+ * the buckets it falls into when its values were revised. Intervals older than the revision horizon
+ * behind the newest one are final: once they are added to the buckets only the spans of time they cover
+ * are kept, so later copies of them are ignored while backfilled intervals outside the spans are still added.
+ * Memory stays bounded by the horizon and the number of gaps in the data.
+ * <p>
+ * A query reads one row per bucket of the requested resolution instead of going over the half-hour
+ * intervals, so a year of weekly averages takes about 52 rows.
+ */
+@Component
+public class GenerationRollupStore {
+
+    /**
+     * Forecasts cover up to three days ahead and are only revised until their intervals are past,
+     * so intervals four days behind the newest one no longer change.
+     */
+    static final long REVISION_HORIZON_SECONDS = 4 * 86_400;
+
+    private final List<String> fuels = new ArrayList<>();
+
+    private final NavigableMap<Long, Interval> intervals = new TreeMap<>();
+
+    /**
+     * Spans of final intervals already added to the buckets, as start mapped to end in epoch seconds.
+     * Adjacent spans are merged.
+     */
+    private final NavigableMap<Long, Long> finalSpans = new TreeMap<>();
+
+    private final Map<RollupResolution, NavigableMap<Long, Bucket>> levels = new EnumMap<>(RollupResolution.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Start of the oldest interval that may still be revised, in epoch seconds.
+     */
+    private long revisableFrom = Long.MIN_VALUE;
+
+    public GenerationRollupStore(GenerationDataLoader generationDataLoader,
+                                 Optional<GenerationHistoryStore> historyStore) {
+        for (RollupResolution resolution : RollupResolution.values()) {
+            levels.put(resolution, new TreeMap<>());
+        }
+        historyStore.ifPresent(store -> ingest(store.readAll()));
+        generationDataLoader.addIngestListener(this::ingest);
+    }
+
+    /**
+     * Adds the intervals of a timeline to the rollups. An interval seen before is replaced:
+     * its previous values are subtracted from its buckets before the new ones are added.
+     * Intervals before the revision horizon are added once as final and skipped when they are already counted.
+     *
+     * @param timeline generation timeline
+     */
+    public void ingest(GenerationTimeline timeline) {
+        lock.writeLock().lock();
+        try {
+            int[] columns = columns(timeline);
+            for (int i = 0; i < timeline.size(); i++) {
+                long start = timeline.start(i);
+                if (start < revisableFrom && isFinal(start)) {
+                    continue;
+                }
+                double[] values = new double[fuels.size()];
+                Arrays.fill(values, Double.NaN);
+                for (int f = 0; f < columns.length; f++) {
+                    values[columns[f]] = timeline.percentage(f, i);
+                }
+
+                if (start < revisableFrom) {
+                    apply(start, values, 1);
+                    addFinalSpan(start, timeline.end(i));
+                    continue;
+                }
+                Interval previous = intervals.put(start, new Interval(timeline.end(i), values));
+                if (previous != null) {
+                    if (Arrays.equals(widen(previous.values()), values)) {
+                        continue;
+                    }
+                    apply(start, previous.values(), -1);
+                }
+                apply(start, values, 1);
+            }
+            if (!intervals.isEmpty()) {
+                revisableFrom = Math.max(revisableFrom, intervals.lastKey() - REVISION_HORIZON_SECONDS);
+                NavigableMap<Long, Interval> finalIntervals = intervals.headMap(revisableFrom, false);
+                for (Map.Entry<Long, Interval> entry : finalIntervals.entrySet()) {
+                    addFinalSpan(entry.getKey(), entry.getValue().end());
+                }
+                finalIntervals.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the buckets of a resolution that lie fully within the range. Buckets that only partly overlap
+     * the start or the end of the range are left out, so every bucket returned holds whole bucket averages
+     * of data inside the range. Buckets without any value are left out.
+     *
+     * @param from       start of the range in epoch seconds (inclusive)
+     * @param to         end of the range in epoch seconds (exclusive)
+     * @param resolution bucket size
+     * @return average percentage of every fuel per bucket, in chronological order
+     */
+    public List<RollupBucket> query(long from, long to, RollupResolution resolution) {
+        lock.readLock().lock();
+        try {
+            long firstStart = resolution.bucketStart(from);
+            if (firstStart < from) {
+                firstStart = resolution.nextBucketStart(firstStart);
+            }
+            NavigableMap<Long, Bucket> buckets = levels.get(resolution).subMap(firstStart, true, to, false);
+            List<RollupBucket> result = new ArrayList<>(buckets.size());
+            for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+                long start = entry.getKey();
+                long end = resolution.nextBucketStart(start);
+                if (end > to) {
+                    break;
+                }
+                Map<String, Double> averages = entry.getValue().averages();
+                if (!averages.isEmpty()) {
+                    result.add(new RollupBucket(start, end, averages));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of intervals kept for revision
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return intervals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether a final interval starting at the given time was already added to the buckets
+     */
+    private boolean isFinal(long start) {
+        Map.Entry<Long, Long> span = finalSpans.floorEntry(start);
+        return span != null && start < span.getValue();
+    }
+
+    /**
+     * Records a final interval, merging it with the spans it touches or overlaps.
+     */
+    private void addFinalSpan(long start, long end) {
+        Map.Entry<Long, Long> before = finalSpans.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> after = finalSpans.ceilingEntry(start);
+        while (after != null && after.getKey() <= end) {
+            end = Math.max(end, after.getValue());
+            finalSpans.remove(after.getKey());
+            after = finalSpans.ceilingEntry(start);
+        }
+        finalSpans.put(start, end);
+    }
+
+    /**
+     * Maps the fuel columns of a timeline to the columns of the store, adding fuels not seen before.
+     */
+    private int[] columns(GenerationTimeline timeline) {
+        int[] columns = new int[timeline.fuelCount()];
+        for (int f = 0; f < columns.length; f++) {
+            int column = fuels.indexOf(timeline.fuel(f));
+            if (column < 0) {
+                column = fuels.size();
+                fuels.add(timeline.fuel(f));
+            }
+            columns[f] = column;
+        }
+        return columns;
+    }
+
+    /**
+     * Pads values stored before a fuel was added with missing values for the new columns.
+     */
+    private double[] widen(double[] values) {
+        if (values.length == fuels.size()) {
+            return values;
+        }
+        double[] widened = Arrays.copyOf(values, fuels.size());
+        Arrays.fill(widened, values.length, widened.length, Double.NaN);
+        return widened;
+    }
+
+    private void apply(long start, double[] values, int sign) {
+        for (RollupResolution resolution : RollupResolution.values()) {
+            Bucket bucket = levels.get(resolution)
+                    .computeIfAbsent(resolution.bucketStart(start), key -> new Bucket());
+            bucket.add(values, sign, fuels.size());
+        }
+    }
+
+    /**
+     * Values of an interval that may still be revised, indexed by fuel column.
+     */
+    private record Interval(long end, double[] values) {}
+
+    /**
+     * Running totals of one bucket, indexed by fuel column.
+     */
+    private final class Bucket {
+
+        private double[] sums = new double[0];
+
+        private int[] counts = new int[0];
+
+        private void add(double[] values, int sign, int fuelCount) {
+            if (sums.length < fuelCount) {
+                sums = Arrays.copyOf(sums, fuelCount);
+                counts = Arrays.copyOf(counts, fuelCount);
+            }
+            for (int f = 0; f < values.length; f++) {
+                if (Double.isNaN(values[f])) {
+                    continue;
+                }
+                counts[f] += sign;
+                // reset the sum once a fuel has no values left, so removed values leave no rounding error behind
+                sums[f] = counts[f] == 0 ? 0 : sums[f] + sign * values[f];
+            }
+        }
+
+        private Map<String, Double> averages() {
+            Map<String, Double> averages = new HashMap<>();
+            for (int f = 0; f < counts.length; f++) {
+                if (counts[f] > 0) {
+                    averages.put(fuels.get(f), sums[f] / counts[f]);
+                }
+            }
+            return averages;
+        }
+    }
+}
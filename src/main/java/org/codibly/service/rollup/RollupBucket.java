@@ -0,0 +1,12 @@
+package org.codibly.service.rollup;
+
+import java.util.Map;
+
+/**
+ * Averages of one rollup bucket.
+ *
+ * @param start    start of the bucket in epoch seconds (inclusive)
+ * @param end      end of the bucket in epoch seconds (exclusive)
+ * @param averages average percentage of every fuel with values in the bucket
+ */
+public record RollupBucket(long start, long end, Map<String, Double> averages) {}
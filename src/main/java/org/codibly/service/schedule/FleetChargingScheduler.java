@@ -0,0 +1,101 @@
+package org.codibly.service.schedule;
+
+import org.codibly.model.GenerationTimeline;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Spreads the charging of a fleet over the intervals of a generation timeline under a shared site power cap.
+ * <p>
+ * Vehicles are taken from a priority queue ordered by their slack, the number of intervals they can spare
+ * beyond what they need at full rate, so the least flexible vehicles claim capacity first.
+ * Each vehicle then takes its intervals from a heap ordered by clean energy share, greenest first,
+ * charging as fast as both the vehicle and the remaining site capacity allow until its need is met.
+ * The cost is O(V log V + V * S log S) for V vehicles and S intervals.
+ */
+public final class FleetChargingScheduler {
+
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    private static final double ENERGY_TOLERANCE_KWH = 1e-9;
+
+    private final GenerationTimeline timeline;
+
+    private final double[] cleanShares;
+
+    private final double siteCapacityKw;
+
+    /**
+     * @param timeline       generation timeline whose intervals are the charging slots
+     * @param cleanShares    clean energy percentage of each interval of the timeline
+     * @param siteCapacityKw highest total power the site can deliver at any time
+     */
+    public FleetChargingScheduler(GenerationTimeline timeline, double[] cleanShares, double siteCapacityKw) {
+        this.timeline = timeline;
+        this.cleanShares = cleanShares;
+        this.siteCapacityKw = siteCapacityKw;
+    }
+
+    /**
+     * Assigns charging power to every vehicle in the intervals it is available in.
+     * A vehicle that cannot be fully charged keeps the power it was given.
+     *
+     * @param vehicles charging demands of the fleet
+     * @return charging power in kW indexed by vehicle and interval
+     */
+    public double[][] schedule(List<VehicleDemand> vehicles) {
+        double[] remainingCapacity = new double[timeline.size()];
+        Arrays.fill(remainingCapacity, siteCapacityKw);
+
+        int[] fromIndexes = new int[vehicles.size()];
+        int[] toIndexes = new int[vehicles.size()];
+        int[] slacks = new int[vehicles.size()];
+        PriorityQueue<Integer> vehicleQueue = new PriorityQueue<>(
+                Math.max(1, vehicles.size()),
+                Comparator.<Integer>comparingInt(v -> slacks[v]).thenComparingInt(v -> v));
+        for (int v = 0; v < vehicles.size(); v++) {
+            VehicleDemand vehicle = vehicles.get(v);
+            fromIndexes[v] = timeline.firstIndexStartingAtOrAfter(vehicle.availableFrom());
+            toIndexes[v] = timeline.firstIndexEndingAfter(vehicle.deadline());
+            slacks[v] = toIndexes[v] - fromIndexes[v] - intervalsNeeded(vehicle);
+            vehicleQueue.add(v);
+        }
+
+        double[][] power = new double[vehicles.size()][timeline.size()];
+        PriorityQueue<Integer> slotQueue = new PriorityQueue<>(
+                Math.max(1, timeline.size()),
+                Comparator.<Integer>comparingDouble(i -> -cleanShares[i]).thenComparingInt(i -> i));
+        while (!vehicleQueue.isEmpty()) {
+            int v = vehicleQueue.poll();
+            VehicleDemand vehicle = vehicles.get(v);
+
+            slotQueue.clear();
+            for (int i = fromIndexes[v]; i < toIndexes[v]; i++) {
+                if (remainingCapacity[i] > 0) {
+                    slotQueue.add(i);
+                }
+            }
+
+            double remainingEnergy = vehicle.energyKwh();
+            while (remainingEnergy > ENERGY_TOLERANCE_KWH && !slotQueue.isEmpty()) {
+                int i = slotQueue.poll();
+                double hours = (timeline.end(i) - timeline.start(i)) / SECONDS_PER_HOUR;
+                double rate = Math.min(Math.min(vehicle.maxRateKw(), remainingCapacity[i]), remainingEnergy / hours);
+                power[v][i] = rate;
+                remainingCapacity[i] -= rate;
+                remainingEnergy -= rate * hours;
+            }
+        }
+        return power;
+    }
+
+    /**
+     * @return number of intervals the vehicle needs when charging at its full rate, assuming half-hour intervals
+     */
+    private static int intervalsNeeded(VehicleDemand vehicle) {
+        return (int) Math.ceil(vehicle.energyKwh() / (vehicle.maxRateKw() * 0.5));
+    }
+}
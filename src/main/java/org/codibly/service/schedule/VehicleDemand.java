@@ -0,0 +1,16 @@
+package org.codibly.service.schedule;
+
+/**
+ * Charging demand of a single vehicle.
+ *
+ * @param energyKwh     energy the vehicle needs
+ * @param maxRateKw     highest power the vehicle can charge with
+ * @param availableFrom time the vehicle is plugged in, in epoch seconds
+ * @param deadline      time the vehicle has to be charged by, in epoch seconds
+ */
+public record VehicleDemand(
+        double energyKwh,
+        double maxRateKw,
+        long availableFrom,
+        long deadline
+) {}
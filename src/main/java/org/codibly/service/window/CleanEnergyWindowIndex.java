@@ -0,0 +1,103 @@
+package org.codibly.service.window;
+
+/**
+ * Answers best-window queries constrained to any range of intervals in constant time.
+ * For every window size up to a limit, a sparse table holds the best window start of each
+ * power-of-two run of starts; the best start of a range is then the better of two overlapping runs.
+ * The index is built once per version of the data and shared by all queries against it.
+ */
+public final class CleanEnergyWindowIndex {
+
+    private final CleanEnergyWindowSearch search;
+
+    /**
+     * Best window start indexed by window size - 1, run length level and first start of the run.
+     */
+    private final int[][][] bestStarts;
+
+    /**
+     * @param search        window search over the clean energy shares of the intervals
+     * @param maxWindowSize largest window size answered from the index; longer windows are scanned
+     */
+    public CleanEnergyWindowIndex(CleanEnergyWindowSearch search, int maxWindowSize) {
+        this.search = search;
+        int indexedSizes = Math.max(Math.min(maxWindowSize, search.size()), 0);
+        this.bestStarts = new int[indexedSizes][][];
+        for (int windowSize = 1; windowSize <= indexedSizes; windowSize++) {
+            bestStarts[windowSize - 1] = buildTable(windowSize);
+        }
+    }
+
+    /**
+     * @return window search the index was built from
+     */
+    public CleanEnergyWindowSearch search() {
+        return search;
+    }
+
+    /**
+     * Finds the start index of the window with the highest clean energy share
+     * among the windows that lie fully between two interval indexes.
+     * Returns the same window as {@link CleanEnergyWindowSearch#findBestWindow(int, int, int)},
+     * including the earliest window among equal ones.
+     *
+     * @param windowSize number of consecutive intervals in the window
+     * @param fromIndex  index of the first interval the window may cover (inclusive)
+     * @param toIndex    index of the last interval the window may cover (exclusive)
+     * @return index of the first interval of the best window, or -1 if no window fits between the indexes
+     */
+    public int findBestWindow(int windowSize, int fromIndex, int toIndex) {
+        if (windowSize < 1 || windowSize > bestStarts.length) {
+            return search.findBestWindow(windowSize, fromIndex, toIndex);
+        }
+        int firstStart = Math.max(fromIndex, 0);
+        int lastStart = Math.min(toIndex, search.size()) - windowSize;
+        if (firstStart > lastStart) {
+            return -1;
+        }
+        int level = 31 - Integer.numberOfLeadingZeros(lastStart - firstStart + 1);
+        int[] runs = bestStarts[windowSize - 1][level];
+        return better(runs[firstStart], runs[lastStart - (1 << level) + 1], windowSize);
+    }
+
+    /**
+     * @param startIndex index of the first interval of the window
+     * @param windowSize number of intervals in the window
+     * @return average clean energy share of the window
+     */
+    public double averageOf(int startIndex, int windowSize) {
+        return search.averageOf(startIndex, windowSize);
+    }
+
+    private int[][] buildTable(int windowSize) {
+        int windowCount = search.size() - windowSize + 1;
+        int levels = 32 - Integer.numberOfLeadingZeros(windowCount);
+        int[][] table = new int[levels][];
+        table[0] = new int[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            table[0][i] = i;
+        }
+        for (int level = 1; level < levels; level++) {
+            int half = 1 << (level - 1);
+            int[] previous = table[level - 1];
+            int[] runs = new int[windowCount - (1 << level) + 1];
+            for (int i = 0; i < runs.length; i++) {
+                runs[i] = better(previous[i], previous[i + half], windowSize);
+            }
+            table[level] = runs;
+        }
+        return table;
+    }
+
+    /**
+     * @return the start with the higher window sum, or the earlier one if both are equal
+     */
+    private int better(int a, int b, int windowSize) {
+        double sumA = search.windowSum(a, windowSize);
+        double sumB = search.windowSum(b, windowSize);
+        if (sumA != sumB) {
+            return sumA > sumB ? a : b;
+        }
+        return Math.min(a, b);
+    }
+}
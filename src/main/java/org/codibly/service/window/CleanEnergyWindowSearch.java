@@ -0,0 +1,174 @@
+package org.codibly.service.window;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Finds charging windows with the highest average clean energy share.
+ * The per-interval clean shares are turned into prefix sums once, after which
+ * the clean energy of any window is a constant-time difference and the best window
+ * of a given length is found in a single pass without allocations.
+ */
+public final class CleanEnergyWindowSearch {
+
+    private final double[] cleanShares;
+
+    private final double[] prefixSums;
+
+    /**
+     * @param cleanShares clean energy percentage of each consecutive interval
+     */
+    public CleanEnergyWindowSearch(double[] cleanShares) {
+        this.cleanShares = cleanShares;
+        this.prefixSums = new double[cleanShares.length + 1];
+        for (int i = 0; i < cleanShares.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + cleanShares[i];
+        }
+    }
+
+    /**
+     * @return number of intervals covered by the search
+     */
+    public int size() {
+        return cleanShares.length;
+    }
+
+    /**
+     * Finds the start index of the window with the highest clean energy share.
+     * When several windows share the highest value, the earliest one is returned.
+     *
+     * @param windowSize number of consecutive intervals in the window
+     * @return index of the first interval of the best window, or -1 if there are fewer intervals than the window size
+     */
+    public int findBestWindow(int windowSize) {
+        return findBestWindow(windowSize, 0, cleanShares.length);
+    }
+
+    /**
+     * Finds the start index of the window with the highest clean energy share
+     * among the windows that lie fully between two interval indexes.
+     * When several windows share the highest value, the earliest one is returned.
+     *
+     * @param windowSize number of consecutive intervals in the window
+     * @param fromIndex  index of the first interval the window may cover (inclusive)
+     * @param toIndex    index of the last interval the window may cover (exclusive)
+     * @return index of the first interval of the best window, or -1 if no window fits between the indexes
+     */
+    public int findBestWindow(int windowSize, int fromIndex, int toIndex) {
+        fromIndex = Math.max(fromIndex, 0);
+        toIndex = Math.min(toIndex, cleanShares.length);
+        if (windowSize < 1 || windowSize > toIndex - fromIndex) {
+            return -1;
+        }
+
+        int bestStartIndex = fromIndex;
+        double bestSum = prefixSums[fromIndex + windowSize] - prefixSums[fromIndex];
+        for (int i = fromIndex + 1; i + windowSize <= toIndex; i++) {
+            double sum = prefixSums[i + windowSize] - prefixSums[i];
+            if (sum > bestSum) {
+                bestSum = sum;
+                bestStartIndex = i;
+            }
+        }
+        return bestStartIndex;
+    }
+
+    /**
+     * Finds the start indexes of the best windows whose starts lie at least the given distance apart.
+     * With a distance equal to the window size the windows do not overlap; a distance of 1 allows any overlap.
+     * <p>
+     * The window sums are scored in a single pass that keeps only the best candidates in a bounded heap.
+     * Picking a window rules out fewer than {@code 2 * minStartDistance} other starts, so the best
+     * {@code count * (2 * minStartDistance - 1)} candidates always hold the windows that greedy selection
+     * by score would pick from all of them.
+     *
+     * @param windowSize       number of consecutive intervals in the window
+     * @param count            maximum number of windows to return
+     * @param minStartDistance minimum number of intervals between the starts of two returned windows
+     * @return start indexes of the windows from best to worst, with earlier windows first among equal ones;
+     * fewer than requested if not enough windows fit
+     */
+    public int[] findBestWindows(int windowSize, int count, int minStartDistance) {
+        return findBestWindows(windowSize, count, minStartDistance, 0, cleanShares.length);
+    }
+
+    /**
+     * Finds the start indexes of the best windows like {@link #findBestWindows(int, int, int)},
+     * among the windows that lie fully between two interval indexes.
+     *
+     * @param windowSize       number of consecutive intervals in the window
+     * @param count            maximum number of windows to return
+     * @param minStartDistance minimum number of intervals between the starts of two returned windows
+     * @param fromIndex        index of the first interval a window may cover (inclusive)
+     * @param toIndex          index of the last interval a window may cover (exclusive)
+     * @return start indexes of the windows from best to worst; fewer than requested if not enough windows fit
+     */
+    public int[] findBestWindows(int windowSize, int count, int minStartDistance, int fromIndex, int toIndex) {
+        fromIndex = Math.max(fromIndex, 0);
+        toIndex = Math.min(toIndex, cleanShares.length);
+        int windowCount = toIndex - fromIndex - windowSize + 1;
+        if (windowSize < 1 || windowCount < 1 || count < 1) {
+            return new int[0];
+        }
+        int distance = Math.max(minStartDistance, 1);
+        int capacity = (int) Math.min((long) count * (2L * distance - 1), windowCount);
+
+        PriorityQueue<Integer> candidates = new PriorityQueue<>(capacity, (a, b) -> compareWindows(b, a, windowSize));
+        for (int i = fromIndex; i + windowSize <= toIndex; i++) {
+            if (candidates.size() < capacity) {
+                candidates.add(i);
+            } else if (compareWindows(i, candidates.peek(), windowSize) < 0) {
+                candidates.poll();
+                candidates.add(i);
+            }
+        }
+
+        Integer[] ranked = candidates.toArray(Integer[]::new);
+        Arrays.sort(ranked, (a, b) -> compareWindows(a, b, windowSize));
+        int[] selected = new int[Math.min(count, ranked.length)];
+        int selectedCount = 0;
+        for (int i = 0; i < ranked.length && selectedCount < selected.length; i++) {
+            if (isApart(ranked[i], selected, selectedCount, distance)) {
+                selected[selectedCount++] = ranked[i];
+            }
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * Orders windows from best to worst: higher clean energy first, then the earlier window.
+     */
+    private int compareWindows(int a, int b, int windowSize) {
+        int bySum = Double.compare(windowSum(b, windowSize), windowSum(a, windowSize));
+        return bySum != 0 ? bySum : Integer.compare(a, b);
+    }
+
+    double windowSum(int startIndex, int windowSize) {
+        return prefixSums[startIndex + windowSize] - prefixSums[startIndex];
+    }
+
+    private static boolean isApart(int startIndex, int[] selected, int selectedCount, int distance) {
+        for (int i = 0; i < selectedCount; i++) {
+            if (Math.abs(selected[i] - startIndex) < distance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the average clean energy share of a window by summing its intervals directly,
+     * so the reported value carries no rounding error accumulated in the prefix sums.
+     *
+     * @param startIndex index of the first interval of the window
+     * @param windowSize number of consecutive intervals in the window
+     * @return average clean energy percentage of the window
+     */
+    public double averageOf(int startIndex, int windowSize) {
+        double sum = 0;
+        for (int i = startIndex; i < startIndex + windowSize; i++) {
+            sum += cleanShares[i];
+        }
+        return sum / windowSize;
+    }
+}
@@ -3,6 +3,7 @@ package org.codibly.time;
 import org.springframework.stereotype.Component;
 
 import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -34,4 +35,9 @@ public class SystemTimeProvider implements TimeProvider {
     public ZonedDateTime getEndOfDay() {
         return getStartOfDay();
     }
+
+    @Override
+    public Instant getInstant() {
+        return clock.instant();
+    }
 }
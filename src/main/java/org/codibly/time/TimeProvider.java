@@ -1,5 +1,6 @@
 package org.codibly.time;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 
@@ -10,4 +11,6 @@ public interface TimeProvider {
     ZonedDateTime getStartOfDay();
 
     ZonedDateTime getEndOfDay();
+
+    Instant getInstant();
 }
@@ -0,0 +1,100 @@
+package org.codibly.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import org.codibly.externalClient.CarbonIntensityApi;
+import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.externalClient.FeignCarbonIntensityClient;
+import org.codibly.model.GenerationTimeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeignConfigTest {
+
+    private static final String PAYLOAD = """
+            {"data":[
+              {"from":"2025-01-01T00:00Z","to":"2025-01-01T00:30Z",
+               "generationmix":[{"fuel":"gas","perc":40.5},{"fuel":"wind","perc":59.5}]}
+            ]}
+            """;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/generation", exchange -> {
+            acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            byte[] body = gzip(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Should request gzip and decode the compressed payload through the JDK HttpClient transport")
+    void carbonIntensityClient_shouldNegotiateGzip() {
+        // given
+        FeignConfig config = new FeignConfig();
+        GenerationTransportProperties properties = new GenerationTransportProperties(
+                true, HttpClient.Version.HTTP_2, Duration.ofSeconds(2), Duration.ofSeconds(5), true);
+        CarbonIntensityApi api = Feign.builder()
+                .contract(new SpringMvcContract())
+                .client(config.feignClient(properties, executor))
+                .options(config.feignOptions(properties))
+                .requestInterceptor(config.myRequestInterceptor())
+                .requestInterceptor(config.gzipRequestInterceptor())
+                .target(CarbonIntensityApi.class, "http://localhost:" + server.getAddress().getPort());
+        CarbonIntensityClient client = new FeignCarbonIntensityClient(api,
+                config.generationTimelineDecoder(new ObjectMapper()));
+
+        // when
+        GenerationTimeline timeline = client.getGenerationMix("2025-01-01T00:00Z", "2025-01-02T00:00Z");
+
+        // then
+        assertThat(acceptEncoding.get()).isEqualTo("gzip");
+        assertThat(timeline.size()).isEqualTo(1);
+        assertThat(timeline.percentage(timeline.fuelIndex("wind"), 0)).isEqualTo(59.5);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
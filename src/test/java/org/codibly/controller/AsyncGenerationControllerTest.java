@@ -0,0 +1,144 @@
+package org.codibly.controller;
+
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.exception.NoGenerationFoundExcepion;
+import org.codibly.service.DataVersion;
+import org.codibly.service.Versioned;
+import org.codibly.service.GenerationResponseRenderer;
+import org.codibly.service.GenerationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = AsyncGenerationController.class, properties = "generation.api.execution-mode=async")
+@Import({GenerationResponseRenderer.class, ConditionalResponses.class, AsyncGenerationControllerTest.ExecutorConfig.class})
+class AsyncGenerationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private GenerationService generationService;
+
+    private static final DataVersion DATA_VERSION = new DataVersion(0xabcL, Instant.parse("2025-01-01T10:00:00Z"));
+
+    @Test
+    @DisplayName("Should complete the optimal charging window asynchronously")
+    void getOptimalChargingWindow_shouldReturnOkAndWindow() throws Exception {
+        // given
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any()))
+                .thenReturn(new Versioned<>(DATA_VERSION, OptimalChargingWindowResponse.builder()
+                        .start(ZonedDateTime.parse("2025-12-10T03:00:00Z"))
+                        .end(ZonedDateTime.parse("2025-12-10T06:00:00Z"))
+                        .averageCleanEnergyPercentage(15)
+                        .build()));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/charge-window").param("hours", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", DATA_VERSION.etag()))
+                .andExpect(jsonPath("$.start").value("2025-12-10T03:00:00Z"))
+                .andExpect(jsonPath("$.averageCleanEnergyPercentage").value(15.0));
+    }
+
+    @Test
+    @DisplayName("Should map a failed asynchronous request through the exception handlers")
+    void getOptimalChargingWindow_noData_shouldReturnNotFound() throws Exception {
+        // given
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any()))
+                .thenThrow(new NoGenerationFoundExcepion("No generation data found for the requested period."));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/charge-window").param("hours", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("No generation data found for the requested period."));
+    }
+
+    @Test
+    @DisplayName("Should answer a conditional request for cached data on the servlet thread without searching for the window")
+    void getOptimalChargingWindow_notModified_shouldReturn304WithoutSearch() throws Exception {
+        // given
+        when(generationService.getCachedChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/charge-window")
+                        .param("hours", "3")
+                        .header("If-None-Match", DATA_VERSION.etag()))
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", DATA_VERSION.etag()));
+        verify(generationService, never()).getChargingWindowVersion(anyInt());
+        verify(generationService, never()).findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any());
+    }
+
+    @Test
+    @DisplayName("Should load the version of data that is not cached yet off the servlet thread")
+    void getOptimalChargingWindow_notCached_shouldCheckVersionAsynchronously() throws Exception {
+        // given
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/charge-window")
+                        .param("hours", "3")
+                        .header("If-None-Match", DATA_VERSION.etag()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", DATA_VERSION.etag()));
+        verify(generationService, never()).findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any());
+    }
+
+    @TestConfiguration
+    static class ExecutorConfig {
+
+        @Bean(destroyMethod = "close")
+        ExecutorService upstreamExecutor() {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+    }
+}
@@ -1,26 +1,52 @@
 package org.codibly.controller;
 
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.response.ChargingSlotResponse;
+import org.codibly.dto.response.ChargingWindowBatchItemResponse;
 import org.codibly.dto.response.DailyGenerationResponse;
+import org.codibly.dto.response.FleetScheduleResponse;
+import org.codibly.dto.response.VehicleScheduleResponse;
 import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.service.DataVersion;
+import org.codibly.service.GenerationResponseRenderer;
 import org.codibly.service.GenerationService;
+import org.codibly.service.Versioned;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(GenerationController.class)
+@Import({GenerationResponseRenderer.class, ConditionalResponses.class})
 class GenerationControllerTest {
 
     @Autowired
@@ -29,16 +55,23 @@ class GenerationControllerTest {
     @MockitoBean
     private GenerationService generationService;
 
+    private static final DataVersion DATA_VERSION = new DataVersion(0xabcL, Instant.parse("2025-01-01T10:00:00Z"));
+
     @Test
     @DisplayName("Should return a list of three days with correct generation values")
     void getThreeDaysGeneration_shouldReturnOkAndList() throws Exception {
         // given
-        when(generationService.getThreeDaysAverage()).thenReturn(createDailyGenerationResponses());
+        when(generationService.getThreeDaysVersion()).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.getVersionedThreeDaysAverage(List.of()))
+                .thenReturn(new Versioned<>(DATA_VERSION, createDailyGenerationResponses()));
 
         // when & then
         mockMvc.perform(get("/api/v1/generation/three-days")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().string("Cache-Control", "max-age=600"))
                 .andExpect(jsonPath("$.length()").value(3))
                 .andExpect(jsonPath("$[0].date").value("2025-01-01"))
                 .andExpect(jsonPath("$[0].cleanEnergyPerc").value(7))
@@ -58,7 +91,9 @@ class GenerationControllerTest {
     @DisplayName("Should return the optimal charging window with correct values")
     void getOptimalChargingWindow_shouldReturnOkAndWindow() throws Exception {
         // given
-        when(generationService.findOptimalChargingWindow(anyInt())).thenReturn(createOptimalChargingWindowResponse());
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any())).thenReturn(new Versioned<>(DATA_VERSION, createOptimalChargingWindowResponse()));
 
         // when & then
         mockMvc.perform(get("/api/v1/charge-window")
@@ -70,6 +105,260 @@ class GenerationControllerTest {
                 .andExpect(jsonPath("$.averageCleanEnergyPercentage").value(15.0));
     }
 
+    @Test
+    @DisplayName("Should render the averages once per data version and serve gzip when accepted")
+    void getThreeDaysGeneration_shouldReuseRenderedBytes() throws Exception {
+        // given
+        when(generationService.getThreeDaysVersion()).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.getVersionedThreeDaysAverage(List.of()))
+                .thenReturn(new Versioned<>(DATA_VERSION, createDailyGenerationResponses()));
+
+        // when
+        String json = mockMvc.perform(get("/api/v1/generation/three-days"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        byte[] gzip = mockMvc.perform(get("/api/v1/generation/three-days")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"abc-gzip\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // then
+        assertThat(gunzip(gzip)).isEqualTo(json);
+        verify(generationService, times(1)).getVersionedThreeDaysAverage(List.of());
+    }
+
+    @Test
+    @DisplayName("Should label the rendered averages with the version of the data they were calculated from")
+    void getThreeDaysGeneration_refreshBeforeRendering_shouldUseVersionOfRenderedData() throws Exception {
+        // given
+        DataVersion refreshed = new DataVersion(0xdefL, Instant.parse("2025-01-01T10:30:00Z"));
+        when(generationService.getThreeDaysVersion()).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.getVersionedThreeDaysAverage(List.of()))
+                .thenReturn(new Versioned<>(refreshed, createDailyGenerationResponses()));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/generation/three-days"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"def\""));
+    }
+
+    @Test
+    @DisplayName("Should only match a conditional request against the entity tag of the same encoding")
+    void getThreeDaysGeneration_conditionalRequest_shouldMatchEncoding() throws Exception {
+        // given
+        when(generationService.getThreeDaysVersion()).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.getVersionedThreeDaysAverage(List.of()))
+                .thenReturn(new Versioned<>(DATA_VERSION, createDailyGenerationResponses()));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/generation/three-days")
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", "\"abc-gzip\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc-gzip\""));
+
+        mockMvc.perform(get("/api/v1/generation/three-days")
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", "\"abc\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-gzip\""));
+
+        mockMvc.perform(get("/api/v1/generation/three-days")
+                        .header("If-None-Match", "\"abc-gzip\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip;q=0", "x-gzip-foo", "deflate, gzip; q=0.0", "*, gzip;q=0", "identity"})
+    @DisplayName("Should not compress the averages unless gzip is accepted with a non-zero quality")
+    void getThreeDaysGeneration_gzipNotAccepted_shouldServeJson(String acceptEncoding) throws Exception {
+        // given
+        when(generationService.getThreeDaysVersion()).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.getVersionedThreeDaysAverage(List.of()))
+                .thenReturn(new Versioned<>(DATA_VERSION, createDailyGenerationResponses()));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/generation/three-days")
+                        .header("Accept-Encoding", acceptEncoding))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "GZIP;q=0.5", "deflate;q=1, x-gzip", "*;q=0.1", "br, gzip;q=1.0"})
+    @DisplayName("Should recognize gzip among the accepted encodings")
+    void acceptsGzip_gzipAccepted_shouldReturnTrue(String acceptEncoding) {
+        assertThat(ConditionalResponses.acceptsGzip(acceptEncoding)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should pass the earliest start and deadline of the window to the search")
+    void getOptimalChargingWindow_withBounds_shouldSearchBetweenThem() throws Exception {
+        // given
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any()))
+                .thenReturn(new Versioned<>(DATA_VERSION, createOptimalChargingWindowResponse()));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/charge-window")
+                        .param("hours", "3")
+                        .param("earliestStart", "2025-12-09T18:00:00Z")
+                        .param("deadline", "2025-12-10T07:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start").value("2025-12-10T03:00:00Z"));
+
+        verify(generationService).findVersionedOptimalChargingWindow(new ChargingWindowRequest(3,
+                ZonedDateTime.parse("2025-12-09T18:00:00Z"), ZonedDateTime.parse("2025-12-10T07:00:00Z")), null);
+    }
+
+    @Test
+    @DisplayName("Should label the charging window with the version of the index it was read from")
+    void getOptimalChargingWindow_indexBehindCache_shouldUseVersionOfWindowData() throws Exception {
+        // given
+        DataVersion indexed = new DataVersion(0xdefL, Instant.parse("2025-01-01T09:30:00Z"));
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any()))
+                .thenReturn(new Versioned<>(indexed, createOptimalChargingWindowResponse()));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/charge-window")
+                        .param("hours", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", indexed.etag()))
+                .andExpect(header().string("Last-Modified", "Wed, 01 Jan 2025 09:30:00 GMT"));
+    }
+
+    @Test
+    @DisplayName("Should mark stale data and ask clients to revalidate it")
+    void getOptimalChargingWindow_staleData_shouldBeMarked() throws Exception {
+        // given
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION.asStale());
+        when(generationService.findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any()))
+                .thenReturn(new Versioned<>(DATA_VERSION.asStale(), createOptimalChargingWindowResponse()));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/charge-window")
+                        .param("hours", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Data-Stale", "true"))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(jsonPath("$.start").value("2025-12-10T03:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should return 304 without computing the averages when the data has not changed")
+    void getThreeDaysGeneration_notModified_shouldReturn304() throws Exception {
+        // given
+        when(generationService.getThreeDaysVersion()).thenReturn(DATA_VERSION);
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/generation/three-days")
+                        .header("If-None-Match", DATA_VERSION.etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", DATA_VERSION.etag()))
+                .andExpect(header().string("Cache-Control", "max-age=600"))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/v1/charge-window")
+                        .param("hours", "3")
+                        .header("If-Modified-Since", "Wed, 01 Jan 2025 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        verify(generationService, never()).getVersionedThreeDaysAverage(any());
+        verify(generationService, never()).findVersionedOptimalChargingWindow(any(ChargingWindowRequest.class), any());
+    }
+
+    @Test
+    @DisplayName("Should return the ranked charging windows with non-overlapping windows by default")
+    void getTopChargingWindows_shouldReturnOkAndWindows() throws Exception {
+        // given
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(DATA_VERSION);
+        when(generationService.getTimeUntilRefresh()).thenReturn(Duration.ofMinutes(10));
+        when(generationService.findVersionedTopChargingWindows(anyInt(), anyInt(), anyBoolean(), any()))
+                .thenReturn(new Versioned<>(DATA_VERSION,
+                        List.of(createOptimalChargingWindowResponse(), createOptimalChargingWindowResponse())));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/charge-window/top")
+                        .param("hours", "3")
+                        .param("count", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].start").value("2025-12-10T03:00:00Z"));
+
+        verify(generationService).findVersionedTopChargingWindows(3, 2, false, null);
+    }
+
+    @Test
+    @DisplayName("Should return the optimal charging window or the error of every batch request")
+    void getOptimalChargingWindows_shouldReturnOkAndWindows() throws Exception {
+        // given
+        when(generationService.findOptimalChargingWindows(anyList())).thenReturn(List.of(
+                ChargingWindowBatchItemResponse.of(createOptimalChargingWindowResponse()),
+                ChargingWindowBatchItemResponse.failed("Not enough data to calculate the optimal window")));
+
+        // when & then
+        mockMvc.perform(post("/api/v1/charge-window/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"requests": [
+                                  {"hours": 3},
+                                  {"hours": 2, "earliestStart": "2025-12-10T01:00:00Z", "deadline": "2025-12-10T08:00:00Z"}
+                                ]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].window.start").value("2025-12-10T03:00:00Z"))
+                .andExpect(jsonPath("$[0].window.averageCleanEnergyPercentage").value(15.0))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].window").doesNotExist())
+                .andExpect(jsonPath("$[1].error").value("Not enough data to calculate the optimal window"));
+    }
+
+    @Test
+    @DisplayName("Should return the charging schedule of the fleet")
+    void scheduleFleetCharging_shouldReturnOkAndSchedule() throws Exception {
+        // given
+        ChargingSlotResponse slot = new ChargingSlotResponse(
+                ZonedDateTime.parse("2025-12-10T03:00:00Z"), ZonedDateTime.parse("2025-12-10T03:30:00Z"), 11.0);
+        when(generationService.scheduleFleetCharging(any())).thenReturn(new FleetScheduleResponse(5.5, 60.0,
+                List.of(new VehicleScheduleResponse("van-1", 5.5, 60.0, List.of(slot)))));
+
+        // when & then
+        mockMvc.perform(post("/api/v1/fleet/schedule")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"siteCapacityKw": 50,
+                                 "vehicles": [{"vehicleId": "van-1", "energyKwh": 5.5, "maxChargeRateKw": 11}]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cleanEnergyPercentage").value(60.0))
+                .andExpect(jsonPath("$.vehicles[0].vehicleId").value("van-1"))
+                .andExpect(jsonPath("$.vehicles[0].slots[0].start").value("2025-12-10T03:00:00Z"))
+                .andExpect(jsonPath("$.vehicles[0].slots[0].powerKw").value(11.0));
+    }
+
+    private static String gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
     private OptimalChargingWindowResponse createOptimalChargingWindowResponse() {
         return OptimalChargingWindowResponse.builder()
                 .start(ZonedDateTime.parse("2025-12-10T03:00:00Z"))
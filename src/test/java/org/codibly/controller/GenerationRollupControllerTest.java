@@ -0,0 +1,67 @@
+package org.codibly.controller;
+
+import org.codibly.dto.response.GenerationRollupResponse;
+import org.codibly.dto.response.RollupBucketResponse;
+import org.codibly.model.RollupResolution;
+import org.codibly.service.GenerationRollupService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(GenerationRollupController.class)
+class GenerationRollupControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private GenerationRollupService rollupService;
+
+    @Test
+    @DisplayName("Should return the rollup buckets of the requested range")
+    void getRollup_shouldReturnOkAndBuckets() throws Exception {
+        // given
+        when(rollupService.getRollup(ZonedDateTime.parse("2025-01-06T00:00Z"), ZonedDateTime.parse("2025-01-13T00:00Z"), null))
+                .thenReturn(new GenerationRollupResponse(RollupResolution.WEEK, List.of(new RollupBucketResponse(
+                        ZonedDateTime.parse("2025-01-06T00:00Z"), ZonedDateTime.parse("2025-01-13T00:00Z"),
+                        Map.of("wind", 40.0, "gas", 60.0), 40.0))));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/generation/rollup")
+                        .param("from", "2025-01-06T00:00Z")
+                        .param("to", "2025-01-13T00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution").value("WEEK"))
+                .andExpect(jsonPath("$.buckets.length()").value(1))
+                .andExpect(jsonPath("$.buckets[0].energyMix.wind").value(40.0))
+                .andExpect(jsonPath("$.buckets[0].cleanEnergyPerc").value(40.0));
+    }
+
+    @Test
+    @DisplayName("Should return bad request for an unknown resolution")
+    void getRollup_unknownResolution_shouldReturnBadRequest() throws Exception {
+        // given
+        when(rollupService.getRollup(any(), any(), eq("year")))
+                .thenThrow(new IllegalArgumentException("Unknown rollup resolution: year"));
+
+        // when & then
+        mockMvc.perform(get("/api/v1/generation/rollup")
+                        .param("from", "2025-01-01T00:00Z")
+                        .param("to", "2026-01-01T00:00Z")
+                        .param("resolution", "year"))
+                .andExpect(status().isBadRequest());
+    }
+}
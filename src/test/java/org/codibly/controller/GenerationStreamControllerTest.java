@@ -0,0 +1,162 @@
+package org.codibly.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.StreamConfig;
+import org.codibly.dto.response.DailyGenerationResponse;
+import org.codibly.dto.response.OptimalChargingWindowResponse;
+import org.codibly.service.DataVersion;
+import org.codibly.service.GenerationCache;
+import org.codibly.service.GenerationService;
+import org.codibly.service.GenerationUpdateBroadcaster;
+import org.codibly.service.Versioned;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@WebMvcTest(GenerationStreamController.class)
+@Import({GenerationUpdateBroadcaster.class, StreamConfig.class, GenerationStreamControllerTest.StreamTestConfig.class})
+class GenerationStreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GenerationUpdateBroadcaster updateBroadcaster;
+
+    @MockitoBean
+    private GenerationService generationService;
+
+    @MockitoBean
+    private GenerationCache generationCache;
+
+    @Test
+    @DisplayName("Should send the current update on subscribing and push a new one only when the data changes")
+    void streamUpdates_shouldPushUpdatesOnDataChange() throws Exception {
+        // given
+        when(generationService.getThreeDaysVersion()).thenReturn(version(0xaL));
+        when(generationService.getChargingWindowVersion(anyInt())).thenReturn(version(0xbL));
+        when(generationService.getVersionedThreeDaysAverage(List.of())).thenReturn(new Versioned<>(version(0xaL),
+                List.of(new DailyGenerationResponse("2025-01-01", Map.of("wind", 40.0), 40))));
+        when(generationService.findVersionedBestChargingWindows()).thenReturn(new Versioned<>(version(0xbL),
+                Map.of(1, OptimalChargingWindowResponse.builder()
+                        .start(ZonedDateTime.parse("2025-01-02T03:00:00Z"))
+                        .end(ZonedDateTime.parse("2025-01-02T04:00:00Z"))
+                        .averageCleanEnergyPercentage(55)
+                        .build())));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/generation/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String firstEvent = result.getResponse().getContentAsString();
+        assertThat(firstEvent)
+                .startsWith("id:a-b\nevent:generation-update\ndata:")
+                .contains("\"cleanEnergyPerc\":40.0")
+                .contains("\"chargeWindows\":{\"1\":{")
+                .doesNotContain("\"2\":");
+
+        // when
+        clearInvocations(generationService);
+        updateBroadcaster.publishIfChanged();
+
+        // then
+        verify(generationService, never()).getVersionedThreeDaysAverage(List.of());
+        assertThat(result.getResponse().getContentAsString()).isEqualTo(firstEvent);
+
+        // when
+        when(generationService.getThreeDaysVersion()).thenReturn(version(0xcL));
+        when(generationService.getVersionedThreeDaysAverage(List.of())).thenReturn(new Versioned<>(version(0xdL),
+                List.of(new DailyGenerationResponse("2025-01-01", Map.of("wind", 45.0), 45))));
+        updateBroadcaster.publishIfChanged();
+
+        // then
+        assertThat(result.getResponse().getContentAsString())
+                .startsWith(firstEvent)
+                .contains("id:d-b\nevent:generation-update\n")
+                .doesNotContain("id:c-b");
+        assertThat(updateBroadcaster.getSubscriberCount()).isEqualTo(1);
+
+        // when
+        updateBroadcaster.sendHeartbeat();
+
+        // then
+        assertThat(result.getResponse().getContentAsString()).endsWith(":heartbeat\n\n");
+    }
+
+    private static DataVersion version(long hash) {
+        return new DataVersion(hash, Instant.parse("2025-01-01T10:00:00Z"));
+    }
+
+    @TestConfiguration
+    static class StreamTestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        /**
+         * Runs the fan-out on the calling thread, so pushed events are written before publishing returns.
+         */
+        @Bean
+        ExecutorService upstreamExecutor() {
+            return new AbstractExecutorService() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+
+                @Override
+                public void shutdown() {
+                }
+
+                @Override
+                public List<Runnable> shutdownNow() {
+                    return List.of();
+                }
+
+                @Override
+                public boolean isShutdown() {
+                    return false;
+                }
+
+                @Override
+                public boolean isTerminated() {
+                    return false;
+                }
+
+                @Override
+                public boolean awaitTermination(long timeout, TimeUnit unit) {
+                    return true;
+                }
+            };
+        }
+    }
+}
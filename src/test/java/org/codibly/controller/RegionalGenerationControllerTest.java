@@ -0,0 +1,79 @@
+package org.codibly.controller;
+
+import org.codibly.dto.response.DailyGenerationResponse;
+import org.codibly.dto.response.RegionalGenerationResponse;
+import org.codibly.exception.GenerationProviderConnectionException;
+import org.codibly.service.RegionalGenerationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RegionalGenerationController.class)
+class RegionalGenerationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private RegionalGenerationService regionalGenerationService;
+
+    @Test
+    @DisplayName("Should return the three-day averages of the requested regions")
+    void getThreeDaysGeneration_shouldReturnOkAndRegions() throws Exception {
+        // given
+        when(regionalGenerationService.getThreeDaysAverage(List.of(13, 1))).thenReturn(CompletableFuture.completedFuture(List.of(
+                new RegionalGenerationResponse(13, "London",
+                        List.of(new DailyGenerationResponse("2025-01-01", Map.of("wind", 40.0), 40))),
+                new RegionalGenerationResponse(1, "North Scotland",
+                        List.of(new DailyGenerationResponse("2025-01-01", Map.of("wind", 90.0), 90)))
+        )));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/regions/generation/three-days").param("regionIds", "13,1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].regionId").value(13))
+                .andExpect(jsonPath("$[0].region").value("London"))
+                .andExpect(jsonPath("$[0].days[0].cleanEnergyPerc").value(40))
+                .andExpect(jsonPath("$[1].days[0].energyMix.wind").value(90.0));
+    }
+
+    @Test
+    @DisplayName("Should return bad gateway when loading a region fails")
+    void getOptimalChargingWindow_regionFails_shouldReturnBadGateway() throws Exception {
+        // given
+        when(regionalGenerationService.findOptimalChargingWindow(anyInt(), anyList())).thenReturn(CompletableFuture.failedFuture(
+                new GenerationProviderConnectionException("Failed to fetch data from CarbonIntensity API",
+                        new RestClientException("timeout"))));
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v1/regions/charge-window").param("hours", "3").param("regionIds", "13"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadGateway());
+    }
+}
@@ -0,0 +1,135 @@
+package org.codibly.externalClient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.codibly.model.GenerationTimeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenerationTimelineDecoderTest {
+
+    private final GenerationTimelineDecoder decoder = new GenerationTimelineDecoder(new JsonFactory());
+
+    private static final long RANGE_FROM = ZonedDateTime.parse("2025-01-01T00:00Z").toEpochSecond();
+
+    private static final long RANGE_TO = ZonedDateTime.parse("2025-01-02T00:00Z").toEpochSecond();
+
+    private static final String PAYLOAD = """
+            {"data":[
+              {"from":"2024-12-31T23:30Z","to":"2025-01-01T00:00Z",
+               "generationmix":[{"fuel":"wind","perc":99.0}]},
+              {"from":"2025-01-01T00:00Z","to":"2025-01-01T00:30Z",
+               "generationmix":[{"fuel":"gas","perc":40.5},{"fuel":"wind","perc":30.0},{"perc":9.5,"fuel":"solar"}]},
+              {"generationmix":[{"fuel":"wind","perc":20.0},{"fuel":"gas","perc":60.0}],
+               "to":"2025-01-01T01:00Z","from":"2025-01-01T00:30Z","intensity":{"forecast":120}},
+              {"from":"2025-01-01T23:30Z","to":"2025-01-02T00:30Z",
+               "generationmix":[{"fuel":"wind","perc":1.0}]}
+            ],"meta":{"source":"test"}}
+            """;
+
+    @Test
+    @DisplayName("Should decode entries within the requested range into timeline columns")
+    void decode_shouldKeepEntriesWithinRange() throws Exception {
+        // given
+        Response response = response("/generation/2025-01-01T00:00Z/2025-01-02T00:00Z", PAYLOAD);
+
+        // when
+        GenerationTimeline timeline = decoder.decode(response, RANGE_FROM, RANGE_TO);
+
+        // then
+        assertThat(timeline.size()).isEqualTo(2);
+        assertThat(timeline.startTime(0)).isEqualTo(ZonedDateTime.parse("2025-01-01T00:00Z"));
+        assertThat(timeline.endTime(1)).isEqualTo(ZonedDateTime.parse("2025-01-01T01:00Z"));
+        assertThat(timeline.percentage(timeline.fuelIndex("gas"), 0)).isEqualTo(40.5);
+        assertThat(timeline.percentage(timeline.fuelIndex("solar"), 0)).isEqualTo(9.5);
+        assertThat(timeline.percentage(timeline.fuelIndex("wind"), 1)).isEqualTo(20.0);
+        assertThat(timeline.percentage(timeline.fuelIndex("solar"), 1)).isNaN();
+    }
+
+    @Test
+    @DisplayName("Should filter by the range passed to the decoder regardless of the request URL")
+    void decode_rangeNotInUrl_shouldUseGivenRange() throws Exception {
+        // given
+        Response response = response("/generation", PAYLOAD);
+
+        // when
+        GenerationTimeline timeline = decoder.decode(response, RANGE_FROM, RANGE_TO);
+        GenerationTimeline unbounded = decoder.decode(response("/generation", PAYLOAD), Long.MIN_VALUE, Long.MAX_VALUE);
+
+        // then
+        assertThat(timeline.size()).isEqualTo(2);
+        assertThat(unbounded.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should decode the entries nested in a regional payload within the requested range")
+    void decode_regionalPayload_shouldKeepEntriesWithinRange() throws Exception {
+        // given
+        String payload = """
+                {"data":{"regionid":13,"dnoregion":"UKPN London","shortname":"London","data":[
+                  {"from":"2024-12-31T23:30Z","to":"2025-01-01T00:00Z",
+                   "intensity":{"forecast":150,"index":"moderate"},
+                   "generationmix":[{"fuel":"wind","perc":99.0}]},
+                  {"from":"2025-01-01T00:00Z","to":"2025-01-01T00:30Z",
+                   "intensity":{"forecast":120,"index":"moderate"},
+                   "generationmix":[{"fuel":"gas","perc":45.0},{"fuel":"wind","perc":35.0}]}
+                ]}}
+                """;
+        Response response = response("/regional/intensity/2025-01-01T00:00Z/2025-01-02T00:00Z/regionid/13", payload);
+
+        // when
+        GenerationTimeline timeline = decoder.decode(response, RANGE_FROM, RANGE_TO);
+
+        // then
+        assertThat(timeline.size()).isEqualTo(1);
+        assertThat(timeline.startTime(0)).isEqualTo(ZonedDateTime.parse("2025-01-01T00:00Z"));
+        assertThat(timeline.percentage(timeline.fuelIndex("gas"), 0)).isEqualTo(45.0);
+        assertThat(timeline.percentage(timeline.fuelIndex("wind"), 0)).isEqualTo(35.0);
+    }
+
+    @Test
+    @DisplayName("Should return no timeline for missing data and fail on an error status")
+    void decode_errorStatus_shouldThrow() {
+        // given
+        Response notFound = response("/generation", "", 404);
+        Response serverError = response("/generation", "{}", 503);
+
+        // when & then
+        assertThat(decoder.decode(notFound, RANGE_FROM, RANGE_TO)).isNull();
+        assertThatThrownBy(() -> decoder.decode(serverError, RANGE_FROM, RANGE_TO))
+                .isInstanceOf(FeignException.ServiceUnavailable.class);
+    }
+
+    @Test
+    @DisplayName("Should parse API timestamps into epoch seconds")
+    void parseTimestamp_shouldMatchZonedDateTime() {
+        for (String timestamp : new String[]{"2025-01-01T00:30Z", "2024-02-29T23:00Z", "1999-12-31T12:59Z"}) {
+            assertThat(GenerationTimelineDecoder.parseTimestamp(timestamp.toCharArray(), 0, timestamp.length()))
+                    .isEqualTo(ZonedDateTime.parse(timestamp).toEpochSecond());
+        }
+    }
+
+    private static Response response(String path, String body) {
+        return response(path, body, 200);
+    }
+
+    private static Response response(String path, String body, int status) {
+        Request request = Request.create(Request.HttpMethod.GET, "https://api.carbonintensity.org.uk" + path,
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return Response.builder()
+                .status(status)
+                .request(request)
+                .headers(Map.of())
+                .body(body, StandardCharsets.UTF_8)
+                .build();
+    }
+}
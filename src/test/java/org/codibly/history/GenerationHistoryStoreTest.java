@@ -0,0 +1,141 @@
+package org.codibly.history;
+
+import org.codibly.config.GenerationHistoryProperties;
+import org.codibly.model.GenerationTimeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationHistoryStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private static final long START = ZonedDateTime.parse("2025-01-01T00:00Z").toEpochSecond();
+
+    private static final long HALF_HOUR = 1800;
+
+    @Test
+    @DisplayName("Should read stored intervals back after the store is reopened")
+    void append_reopen_shouldReadStoredIntervals() {
+        // given
+        GenerationHistoryProperties properties = properties(4);
+        try (GenerationHistoryStore store = new GenerationHistoryStore(properties)) {
+            store.append(timeline(0, 10));
+        }
+
+        // when
+        Optional<GenerationTimeline> stored;
+        try (GenerationHistoryStore reopened = new GenerationHistoryStore(properties)) {
+            stored = reopened.read(START + 2 * HALF_HOUR, START + 6 * HALF_HOUR);
+            assertThat(reopened.size()).isEqualTo(10);
+        }
+
+        // then
+        assertThat(stored).isPresent();
+        GenerationTimeline timeline = stored.get();
+        assertThat(timeline.size()).isEqualTo(4);
+        assertThat(timeline.start(0)).isEqualTo(START + 2 * HALF_HOUR);
+        assertThat(timeline.percentage(timeline.fuelIndex("wind"), 1)).isEqualTo(3.0);
+        assertThat(timeline.percentage(timeline.fuelIndex("coal"), 1)).isNaN();
+    }
+
+    @Test
+    @DisplayName("Should overwrite revised intervals and append new ones")
+    void append_revision_shouldOverwriteInPlace() {
+        try (GenerationHistoryStore store = new GenerationHistoryStore(properties(16))) {
+            // given
+            store.append(timeline(0, 4));
+
+            // when
+            int written = store.append(GenerationTimeline.builder()
+                    .interval(START + HALF_HOUR, START + 2 * HALF_HOUR).percentage("wind", 99.0)
+                    .interval(START + 4 * HALF_HOUR, START + 5 * HALF_HOUR).percentage("wind", 4.0)
+                    .build());
+
+            // then
+            assertThat(written).isEqualTo(2);
+            assertThat(store.size()).isEqualTo(5);
+            GenerationTimeline timeline = store.read(START, START + 5 * HALF_HOUR).orElseThrow();
+            assertThat(timeline.percentage(timeline.fuelIndex("wind"), 1)).isEqualTo(99.0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should not return a range that the store does not fully cover")
+    void read_gap_shouldReturnEmpty() {
+        try (GenerationHistoryStore store = new GenerationHistoryStore(properties(16))) {
+            // given
+            store.append(timeline(0, 2));
+            store.append(timeline(4, 6));
+
+            // when & then
+            assertThat(store.read(START, START + 2 * HALF_HOUR)).isPresent();
+            assertThat(store.read(START, START + 6 * HALF_HOUR)).isEmpty();
+            assertThat(store.read(START, START + 8 * HALF_HOUR)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fill a gap between stored intervals and keep them in chronological order")
+    void append_intervalsInGap_shouldInsertThem() {
+        try (GenerationHistoryStore store = new GenerationHistoryStore(properties(4))) {
+            // given
+            store.append(timeline(0, 2));
+            store.append(timeline(5, 7));
+
+            // when
+            int written = store.append(timeline(2, 5));
+
+            // then
+            assertThat(written).isEqualTo(3);
+            assertThat(store.size()).isEqualTo(7);
+            GenerationTimeline timeline = store.read(START, START + 7 * HALF_HOUR).orElseThrow();
+            int wind = timeline.fuelIndex("wind");
+            for (int i = 0; i < 7; i++) {
+                assertThat(timeline.start(i)).isEqualTo(START + i * HALF_HOUR);
+                assertThat(timeline.percentage(wind, i)).isEqualTo(i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip an interval that overlaps a stored one without starting with it")
+    void append_overlappingInterval_shouldSkipIt() {
+        try (GenerationHistoryStore store = new GenerationHistoryStore(properties(16))) {
+            // given
+            store.append(timeline(0, 2));
+
+            // when
+            int written = store.append(GenerationTimeline.builder()
+                    .interval(START + HALF_HOUR / 2, START + 3 * HALF_HOUR / 2).percentage("wind", 1.0)
+                    .build());
+
+            // then
+            assertThat(written).isZero();
+            assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    private GenerationHistoryProperties properties(int initialCapacity) {
+        return new GenerationHistoryProperties(true, directory.resolve("history.bin"), initialCapacity,
+                List.of("biomass", "coal", "imports", "gas", "nuclear", "other", "hydro", "solar", "wind"));
+    }
+
+    private static GenerationTimeline timeline(int fromInterval, int toInterval) {
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        for (int i = fromInterval; i < toInterval; i++) {
+            builder.interval(START + i * HALF_HOUR, START + (i + 1) * HALF_HOUR)
+                    .percentage("wind", i)
+                    .percentage("gas", 100.0 - i);
+        }
+        return builder.build();
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
@@ -15,6 +16,7 @@ import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
 @Tag("integration")
 class GenerationControllerIntegrationTest {
 
@@ -73,4 +75,16 @@ class GenerationControllerIntegrationTest {
                 .body("message", equalTo("Charging window length must be between 1 and 6 hours"))
                 .body("path", equalTo("/api/v1/charge-window"));
     }
+
+    @Test
+    @DisplayName("Should expose generation metrics in Prometheus format")
+    void prometheus_happyPath_returnGenerationMetrics() {
+        given()
+                .when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(200)
+                .body(containsString("generation_aggregation_seconds"))
+                .body(containsString("generation_upstream_calls_total"));
+    }
 }
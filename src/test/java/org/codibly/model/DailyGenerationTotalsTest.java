@@ -0,0 +1,101 @@
+package org.codibly.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DailyGenerationTotalsTest {
+
+    private static final long DAY_START = ZonedDateTime.parse("2025-01-01T00:00Z").toEpochSecond();
+
+    private static final long HALF_HOUR = 1800;
+
+    @Test
+    @DisplayName("Should average every fuel per UTC day, skipping intervals without a value")
+    void of_shouldAverageFuelsPerDay() {
+        // given
+        GenerationTimeline timeline = GenerationTimeline.builder()
+                .interval(DAY_START, DAY_START + HALF_HOUR).percentage("wind", 40.0).percentage("gas", 60.0)
+                .interval(DAY_START + HALF_HOUR, DAY_START + 2 * HALF_HOUR).percentage("wind", 20.0)
+                .interval(DAY_START + 48 * HALF_HOUR, DAY_START + 49 * HALF_HOUR).percentage("solar", 10.0)
+                .build();
+
+        // when
+        DailyGenerationTotals totals = DailyGenerationTotals.of(timeline);
+
+        // then
+        assertThat(totals.size()).isEqualTo(2);
+        assertThat(totals.epochDay(0)).isEqualTo(DAY_START / 86_400);
+        assertThat(totals.average(0, fuel(totals, "wind"))).isEqualTo(30.0);
+        assertThat(totals.average(0, fuel(totals, "gas"))).isEqualTo(60.0);
+        assertThat(totals.average(0, fuel(totals, "solar"))).isNaN();
+        assertThat(totals.average(1, fuel(totals, "solar"))).isEqualTo(10.0);
+        assertThat(totals.average(1, fuel(totals, "wind"))).isNaN();
+    }
+
+    @Test
+    @DisplayName("Should apply revised, added and removed intervals like a full recalculation")
+    void updated_shouldMatchFullRecalculation() {
+        // given
+        GenerationTimeline previous = GenerationTimeline.builder()
+                .interval(DAY_START, DAY_START + HALF_HOUR).percentage("wind", 40.0)
+                .interval(DAY_START + HALF_HOUR, DAY_START + 2 * HALF_HOUR).percentage("wind", 20.0)
+                .interval(DAY_START + 48 * HALF_HOUR, DAY_START + 49 * HALF_HOUR).percentage("wind", 70.0)
+                .build();
+        GenerationTimeline current = GenerationTimeline.builder()
+                .interval(DAY_START + HALF_HOUR, DAY_START + 2 * HALF_HOUR).percentage("wind", 25.0).percentage("hydro", 5.0)
+                .interval(DAY_START + 48 * HALF_HOUR, DAY_START + 49 * HALF_HOUR).percentage("wind", 70.0)
+                .interval(DAY_START + 96 * HALF_HOUR, DAY_START + 97 * HALF_HOUR).percentage("wind", 90.0)
+                .build();
+
+        // when
+        DailyGenerationTotals updated = DailyGenerationTotals.of(previous).updated(previous, current);
+
+        // then
+        DailyGenerationTotals expected = DailyGenerationTotals.of(current);
+        assertThat(updated.size()).isEqualTo(expected.size());
+        for (int d = 0; d < expected.size(); d++) {
+            assertThat(updated.epochDay(d)).isEqualTo(expected.epochDay(d));
+            for (int f = 0; f < expected.fuelCount(); f++) {
+                double average = updated.average(d, fuel(updated, expected.fuel(f)));
+                if (Double.isNaN(expected.average(d, f))) {
+                    assertThat(average).isNaN();
+                } else {
+                    assertThat(average).isCloseTo(expected.average(d, f), within(1e-9));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop a day once all of its intervals are removed")
+    void updated_allIntervalsOfDayRemoved_shouldDropDay() {
+        // given
+        GenerationTimeline previous = GenerationTimeline.builder()
+                .interval(DAY_START, DAY_START + HALF_HOUR).percentage("wind", 40.0)
+                .interval(DAY_START + 48 * HALF_HOUR, DAY_START + 49 * HALF_HOUR).percentage("wind", 70.0)
+                .build();
+        GenerationTimeline current = previous.slice(DAY_START + 48 * HALF_HOUR, DAY_START + 49 * HALF_HOUR);
+
+        // when
+        DailyGenerationTotals updated = DailyGenerationTotals.of(previous).updated(previous, current);
+
+        // then
+        assertThat(updated.size()).isEqualTo(1);
+        assertThat(updated.epochDay(0)).isEqualTo(DAY_START / 86_400 + 1);
+        assertThat(updated.average(0, fuel(updated, "wind"))).isEqualTo(70.0);
+    }
+
+    private static int fuel(DailyGenerationTotals totals, String fuel) {
+        for (int f = 0; f < totals.fuelCount(); f++) {
+            if (totals.fuel(f).equals(fuel)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+}
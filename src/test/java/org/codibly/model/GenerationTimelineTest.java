@@ -0,0 +1,56 @@
+package org.codibly.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationTimelineTest {
+
+    @Test
+    @DisplayName("Should store every fuel in its own column and mark missing values as NaN")
+    void build_shouldCreateFuelColumns() {
+        // given
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        long start = ZonedDateTime.parse("2025-01-01T00:00Z").toEpochSecond();
+
+        // when
+        GenerationTimeline timeline = builder
+                .interval(start, start + 1800).percentage("wind", 40.0)
+                .interval(start + 1800, start + 3600).percentage("solar", 10.0).percentage("wind", 30.0)
+                .build();
+
+        // then
+        assertThat(timeline.size()).isEqualTo(2);
+        assertThat(timeline.fuelCount()).isEqualTo(2);
+        assertThat(timeline.percentage(timeline.fuelIndex("wind"), 1)).isEqualTo(30.0);
+        assertThat(timeline.percentage(timeline.fuelIndex("solar"), 0)).isNaN();
+        assertThat(timeline.fuelIndex("coal")).isEqualTo(-1);
+        assertThat(timeline.endTime(1)).isEqualTo(ZonedDateTime.parse("2025-01-01T01:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should keep values when the builder grows past its initial capacity")
+    void build_manyIntervals_shouldKeepAllValues() {
+        // given
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            builder.interval(i * 1800L, (i + 1) * 1800L).percentage("wind", i);
+            if (i == 500) {
+                builder.percentage("solar", 1.0);
+            }
+        }
+        GenerationTimeline timeline = builder.build();
+
+        // then
+        assertThat(timeline.size()).isEqualTo(1000);
+        assertThat(timeline.percentage(0, 999)).isEqualTo(999.0);
+        assertThat(timeline.percentage(1, 500)).isEqualTo(1.0);
+        assertThat(timeline.percentage(1, 501)).isNaN();
+        assertThat(timeline.percentage(1, 0)).isNaN();
+    }
+}
@@ -0,0 +1,51 @@
+package org.codibly.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RollupResolutionTest {
+
+    @Test
+    @DisplayName("Should align buckets to UTC hours, days, Mondays and first days of the month")
+    void bucketStart_shouldAlignToCalendar() {
+        // given
+        long time = epochSecond("2025-02-13T17:45Z");
+
+        // when & then
+        assertThat(RollupResolution.HOUR.bucketStart(time)).isEqualTo(epochSecond("2025-02-13T17:00Z"));
+        assertThat(RollupResolution.DAY.bucketStart(time)).isEqualTo(epochSecond("2025-02-13T00:00Z"));
+        assertThat(RollupResolution.WEEK.bucketStart(time)).isEqualTo(epochSecond("2025-02-10T00:00Z"));
+        assertThat(RollupResolution.MONTH.bucketStart(time)).isEqualTo(epochSecond("2025-02-01T00:00Z"));
+        assertThat(RollupResolution.MONTH.nextBucketStart(epochSecond("2025-02-01T00:00Z")))
+                .isEqualTo(epochSecond("2025-03-01T00:00Z"));
+        assertThat(RollupResolution.WEEK.bucketStart(epochSecond("1969-12-29T00:00Z")))
+                .isEqualTo(epochSecond("1969-12-29T00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should pick the coarsest resolution whose buckets exactly cover the range")
+    void coarsestCovering_shouldPickAlignedResolution() {
+        // when & then
+        assertThat(RollupResolution.coarsestCovering(epochSecond("2025-01-01T00:00Z"), epochSecond("2026-01-01T00:00Z")))
+                .isEqualTo(RollupResolution.MONTH);
+        assertThat(RollupResolution.coarsestCovering(epochSecond("2025-01-06T00:00Z"), epochSecond("2026-01-05T00:00Z")))
+                .isEqualTo(RollupResolution.WEEK);
+        assertThat(RollupResolution.coarsestCovering(epochSecond("2025-01-02T00:00Z"), epochSecond("2025-01-05T00:00Z")))
+                .isEqualTo(RollupResolution.DAY);
+        assertThat(RollupResolution.coarsestCovering(epochSecond("2025-01-02T10:30Z"), epochSecond("2025-01-02T12:00Z")))
+                .isEqualTo(RollupResolution.HOUR);
+        assertThat(RollupResolution.fromName("week")).isEqualTo(RollupResolution.WEEK);
+        assertThatThrownBy(() -> RollupResolution.fromName("year"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown rollup resolution: year");
+    }
+
+    private static long epochSecond(String time) {
+        return ZonedDateTime.parse(time).toEpochSecond();
+    }
+}
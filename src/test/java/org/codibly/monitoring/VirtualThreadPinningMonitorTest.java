@@ -0,0 +1,46 @@
+package org.codibly.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.VirtualThreadProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Test
+    @DisplayName("Should record a virtual thread that sleeps inside a synchronized block")
+    void pinnedVirtualThread_shouldBeRecorded() throws Exception {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Object lock = new Object();
+
+        try (VirtualThreadPinningMonitor ignored =
+                     new VirtualThreadPinningMonitor(new VirtualThreadProperties(Duration.ofMillis(10)), meterRegistry)) {
+            // when
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    sleep(50);
+                }
+            }).join();
+
+            // then
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (meterRegistry.timer("jvm.threads.virtual.pinned").count() == 0 && System.nanoTime() < deadline) {
+                sleep(100);
+            }
+            assertThat(meterRegistry.timer("jvm.threads.virtual.pinned").count()).isEqualTo(1);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.codibly.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.GenerationCacheProperties;
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.exception.GenerationProviderConnectionException;
+import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.model.GenerationRange;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.time.TimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GenerationCacheTest {
+
+    @Mock
+    private TimeProvider timeProvider;
+
+    @Mock
+    private CarbonIntensityClient carbonIntensityClient;
+
+    private GenerationCache generationCache;
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private static final GenerationRange RANGE = range("2025-01-01T00:00Z", "2025-01-02T00:00Z");
+
+    private static final GenerationFetchProperties.Hedge NO_HEDGE =
+            new GenerationFetchProperties.Hedge(false, 0.95, Duration.ofMillis(200));
+
+    @BeforeEach
+    void setUp() {
+        generationCache = new GenerationCache(
+                new GenerationDataLoader(carbonIntensityClient,
+                        new GenerationFetchProperties(Duration.ofDays(7), 4, NO_HEDGE), Executors.newVirtualThreadPerTaskExecutor(),
+                        timeProvider, Optional.empty(), new SimpleMeterRegistry()),
+                timeProvider,
+                new GenerationCacheProperties(Duration.ofMinutes(35), Duration.ofHours(2), 2, Duration.ofHours(6), Duration.ofMinutes(1), 4),
+                Executors.newVirtualThreadPerTaskExecutor()
+        );
+    }
+
+    @Test
+    @DisplayName("Should serve repeated requests for the same range from the cache")
+    void get_withinTtl_shouldNotCallApiAgain() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW, NOW.plusSeconds(60));
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString())).thenReturn(response(10.0));
+
+        // when
+        GenerationTimeline first = generationCache.get(RANGE);
+        GenerationTimeline second = generationCache.get(RANGE);
+
+        // then
+        assertThat(second).isSameAs(first);
+        verify(carbonIntensityClient, times(1)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should reload the range when the cached copy is older than the TTL")
+    void get_afterTtl_shouldReload() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW, NOW.plus(Duration.ofMinutes(40)));
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenReturn(response(10.0), response(20.0));
+
+        // when
+        generationCache.get(RANGE);
+        GenerationTimeline reloaded = generationCache.get(RANGE);
+
+        // then
+        assertThat(reloaded.percentage(0, 0)).isEqualTo(20.0);
+        verify(carbonIntensityClient, times(2)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should replace cached data on refresh and keep it when the refresh fails")
+    void refresh_shouldReloadCachedRanges() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW);
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenReturn(response(10.0), response(20.0))
+                .thenThrow(new RestClientException("API down"));
+        generationCache.get(RANGE);
+
+        // when
+        generationCache.refresh();
+        GenerationTimeline refreshed = generationCache.get(RANGE);
+        generationCache.refresh();
+        GenerationTimeline afterFailure = generationCache.get(RANGE);
+
+        // then
+        assertThat(refreshed.percentage(0, 0)).isEqualTo(20.0);
+        assertThat(afterFailure).isSameAs(refreshed);
+        verify(carbonIntensityClient, times(3)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should reload cached ranges concurrently on refresh")
+    void refresh_shouldReloadRangesConcurrently() {
+        // given
+        GenerationRange second = range("2025-01-02T00:00Z", "2025-01-03T00:00Z");
+        when(timeProvider.getInstant()).thenReturn(NOW);
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString())).thenReturn(response(10.0));
+        generationCache.get(RANGE);
+        generationCache.get(second);
+        CountDownLatch bothReloading = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothReloading.countDown();
+            // a serial refresh never gets the second reload started and times out here
+            return bothReloading.await(5, TimeUnit.SECONDS) ? response(20.0) : response(30.0);
+        }).when(carbonIntensityClient).getGenerationMix(anyString(), anyString());
+
+        // when
+        generationCache.refresh();
+
+        // then
+        assertThat(generationCache.get(RANGE).percentage(0, 0)).isEqualTo(20.0);
+        verify(carbonIntensityClient, times(4)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should reload no more ranges at the same time than the refresh concurrency allows")
+    void refresh_shouldBoundConcurrentReloads() {
+        // given
+        GenerationCache boundedCache = new GenerationCache(
+                new GenerationDataLoader(carbonIntensityClient,
+                        new GenerationFetchProperties(Duration.ofDays(7), 4, NO_HEDGE), Executors.newVirtualThreadPerTaskExecutor(),
+                        timeProvider, Optional.empty(), new SimpleMeterRegistry()),
+                timeProvider,
+                new GenerationCacheProperties(Duration.ofMinutes(35), Duration.ofHours(2), 8, Duration.ofHours(6), Duration.ofMinutes(1), 1),
+                Executors.newVirtualThreadPerTaskExecutor()
+        );
+        when(timeProvider.getInstant()).thenReturn(NOW);
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString())).thenReturn(response(10.0));
+        boundedCache.get(RANGE);
+        boundedCache.get(range("2025-01-02T00:00Z", "2025-01-03T00:00Z"));
+        boundedCache.get(range("2025-01-03T00:00Z", "2025-01-04T00:00Z"));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return response(20.0);
+        }).when(carbonIntensityClient).getGenerationMix(anyString(), anyString());
+
+        // when
+        boundedCache.refresh();
+
+        // then
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        verify(carbonIntensityClient, times(6)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should report the cached version without loading and none once the range must be reloaded")
+    void cachedVersion_shouldNotLoad() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW, NOW, NOW.plusSeconds(60), NOW.plus(Duration.ofMinutes(40)));
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString())).thenReturn(response(10.0));
+
+        // when
+        DataVersion beforeLoad = generationCache.cachedVersion(RANGE);
+        DataVersion loaded = generationCache.version(RANGE);
+        DataVersion cached = generationCache.cachedVersion(RANGE);
+        DataVersion expired = generationCache.cachedVersion(RANGE);
+
+        // then
+        assertThat(beforeLoad).isNull();
+        assertThat(cached).isEqualTo(loaded);
+        assertThat(expired).isNull();
+        verify(carbonIntensityClient, times(1)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should keep the data version when a refresh brings the same data")
+    void version_shouldOnlyChangeWithData() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW, NOW.plusSeconds(1800), NOW.plusSeconds(1800),
+                NOW.plusSeconds(3600));
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenReturn(response(10.0), response(10.0), response(20.0));
+
+        // when
+        DataVersion initial = generationCache.version(RANGE);
+        generationCache.refresh();
+        DataVersion unchanged = generationCache.version(RANGE);
+        generationCache.refresh();
+        DataVersion changed = generationCache.version(RANGE);
+
+        // then
+        assertThat(unchanged).isEqualTo(initial);
+        assertThat(changed.etag()).isNotEqualTo(initial.etag());
+        assertThat(changed.lastModified()).isEqualTo(NOW.plusSeconds(3600));
+    }
+
+    @Test
+    @DisplayName("Should serve the last good timeline as stale when reloading an expired range fails")
+    void get_reloadFails_shouldServeStaleData() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW, NOW.plus(Duration.ofMinutes(40)),
+                NOW.plus(Duration.ofMinutes(40)), NOW.plus(Duration.ofHours(7)));
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenReturn(response(10.0))
+                .thenThrow(new RestClientException("API down"));
+
+        // when
+        GenerationTimeline loaded = generationCache.get(RANGE);
+        GenerationTimeline stale = generationCache.get(RANGE);
+        DataVersion version = generationCache.version(RANGE);
+
+        // then
+        assertThat(stale).isSameAs(loaded);
+        assertThat(version.stale()).isTrue();
+        verify(carbonIntensityClient, times(2)).getGenerationMix(anyString(), anyString());
+        assertThatThrownBy(() -> generationCache.get(RANGE))
+                .isInstanceOf(GenerationProviderConnectionException.class);
+    }
+
+    @Test
+    @DisplayName("Should stop refreshing ranges that have not been requested recently")
+    void refresh_shouldEvictIdleRanges() {
+        // given
+        when(timeProvider.getInstant()).thenReturn(NOW, NOW.plus(Duration.ofHours(3)));
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString())).thenReturn(response(10.0));
+        generationCache.get(RANGE);
+
+        // when
+        generationCache.refresh();
+
+        // then
+        verify(carbonIntensityClient, times(1)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used range when the cache is full")
+    void get_overCapacity_shouldEvictLeastRecentlyUsed() {
+        // given
+        GenerationRange second = range("2025-01-02T00:00Z", "2025-01-03T00:00Z");
+        GenerationRange third = range("2025-01-03T00:00Z", "2025-01-04T00:00Z");
+        when(timeProvider.getInstant()).thenReturn(NOW);
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString())).thenReturn(response(10.0));
+
+        // when
+        generationCache.get(RANGE);
+        generationCache.get(second);
+        generationCache.get(third);
+        generationCache.get(RANGE);
+
+        // then
+        verify(carbonIntensityClient, times(2)).getGenerationMix("2025-01-01T00:00Z", "2025-01-02T00:00Z");
+    }
+
+    private static GenerationRange range(String from, String to) {
+        return new GenerationRange(ZonedDateTime.parse(from), ZonedDateTime.parse(to));
+    }
+
+    private static GenerationTimeline response(double windPerc) {
+        long start = ZonedDateTime.parse("2025-01-01T00:00Z").toEpochSecond();
+        return GenerationTimeline.builder()
+                .interval(start, start + 1800)
+                .percentage("wind", windPerc)
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package org.codibly.service;
+
+import feign.Request;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.exception.GenerationProviderConnectionException;
+import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.model.GenerationRange;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.time.TimeProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestClientException;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GenerationDataLoaderTest {
+
+    @Mock
+    private CarbonIntensityClient carbonIntensityClient;
+
+    @Mock
+    private TimeProvider timeProvider;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GenerationDataLoader generationDataLoader;
+
+    private static final GenerationFetchProperties.Hedge NO_HEDGE =
+            new GenerationFetchProperties.Hedge(false, 0.95, Duration.ofMillis(200));
+
+    @BeforeEach
+    void setUp() {
+        generationDataLoader = new GenerationDataLoader(carbonIntensityClient,
+                new GenerationFetchProperties(Duration.ofDays(7), 2, NO_HEDGE), executor, timeProvider, Optional.empty(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Should split a long range into chunks and merge them in chronological order")
+    void load_longRange_shouldFetchChunksAndMerge() {
+        // given
+        GenerationRange range = range("2025-01-01T00:00Z", "2025-01-17T00:00Z");
+        when(carbonIntensityClient.getGenerationMix("2025-01-01T00:00Z", "2025-01-08T00:00Z"))
+                .thenReturn(day("2025-01-01T00:00Z", 10.0));
+        when(carbonIntensityClient.getGenerationMix("2025-01-08T00:00Z", "2025-01-15T00:00Z"))
+                .thenReturn(day("2025-01-08T00:00Z", 20.0));
+        when(carbonIntensityClient.getGenerationMix("2025-01-15T00:00Z", "2025-01-17T00:00Z"))
+                .thenReturn(day("2025-01-15T00:00Z", 30.0));
+
+        // when
+        GenerationTimeline timeline = generationDataLoader.load(range);
+
+        // then
+        assertThat(timeline.size()).isEqualTo(3);
+        assertThat(timeline.startTime(0)).isEqualTo(ZonedDateTime.parse("2025-01-01T00:00Z"));
+        assertThat(timeline.startTime(2)).isEqualTo(ZonedDateTime.parse("2025-01-15T00:00Z"));
+        assertThat(timeline.percentage(0, 1)).isEqualTo(20.0);
+        assertThat(generationDataLoader.getUpstreamCalls()).isEqualTo(3);
+        assertThat(meterRegistry.get("generation.upstream.requests").tag("outcome", "success").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should fail the whole load when one of the chunks fails")
+    void load_chunkFails_shouldThrow() {
+        // given
+        GenerationRange range = range("2025-01-01T00:00Z", "2025-01-10T00:00Z");
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenReturn(day("2025-01-01T00:00Z", 10.0))
+                .thenThrow(new RestClientException("API down"));
+
+        // when & then
+        assertThatThrownBy(() -> generationDataLoader.load(range))
+                .isInstanceOf(GenerationProviderConnectionException.class);
+        assertThat(meterRegistry.get("generation.upstream.requests").tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should translate a Feign timeout into a provider connection error")
+    void load_feignTimeout_shouldThrowConnectionException() {
+        // given
+        Request request = Request.create(Request.HttpMethod.GET, "/generation", Map.of(), null, StandardCharsets.UTF_8, null);
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenThrow(new RetryableException(-1, "Read timed out", Request.HttpMethod.GET,
+                        new SocketTimeoutException("Read timed out"), (Long) null, request));
+
+        // when & then
+        assertThatThrownBy(() -> generationDataLoader.load(range("2025-01-01T00:00Z", "2025-01-02T00:00Z")))
+                .isInstanceOf(GenerationProviderConnectionException.class)
+                .hasMessageContaining("Failed to fetch data from CarbonIntensity API");
+    }
+
+    @Test
+    @DisplayName("Should send a hedged request when the first one is slow and use the first answer")
+    void load_slowCall_shouldHedge() throws Exception {
+        // given
+        GenerationDataLoader hedgingLoader = new GenerationDataLoader(carbonIntensityClient,
+                new GenerationFetchProperties(Duration.ofDays(7), 2,
+                        new GenerationFetchProperties.Hedge(true, 0.95, Duration.ofMillis(50))),
+                executor, timeProvider, Optional.empty(), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return day("2025-01-01T00:00Z", 10.0);
+                })
+                .thenReturn(day("2025-01-01T00:00Z", 20.0));
+
+        // when
+        GenerationTimeline timeline = hedgingLoader.load(range("2025-01-01T00:00Z", "2025-01-02T00:00Z"));
+        release.countDown();
+
+        // then
+        assertThat(timeline.percentage(0, 0)).isEqualTo(20.0);
+        assertThat(meterRegistry.get("generation.upstream.hedged").counter().count()).isEqualTo(1);
+        verify(carbonIntensityClient, times(2)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should plan chunks that share their boundaries and end at the end of the range")
+    void plan_shouldCoverRange() {
+        // given
+        GenerationFetchPlanner planner = new GenerationFetchPlanner(Duration.ofDays(7));
+
+        // when
+        List<GenerationRange> chunks = planner.plan(range("2025-01-01T00:00Z", "2025-01-15T00:00Z"));
+
+        // then
+        assertThat(chunks).containsExactly(
+                range("2025-01-01T00:00Z", "2025-01-08T00:00Z"),
+                range("2025-01-08T00:00Z", "2025-01-15T00:00Z"));
+    }
+
+    private static GenerationRange range(String from, String to) {
+        return new GenerationRange(ZonedDateTime.parse(from), ZonedDateTime.parse(to));
+    }
+
+    private static GenerationTimeline day(String from, double windPerc) {
+        long start = ZonedDateTime.parse(from).toEpochSecond();
+        return GenerationTimeline.builder()
+                .interval(start, start + 1800)
+                .percentage("wind", windPerc)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package org.codibly.service;
+
+import org.codibly.dto.response.GenerationRollupResponse;
+import org.codibly.exception.NoGenerationFoundExcepion;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.model.RollupResolution;
+import org.codibly.service.rollup.GenerationRollupStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class GenerationRollupServiceTest {
+
+    private final GenerationRollupStore rollupStore =
+            new GenerationRollupStore(mock(GenerationDataLoader.class), Optional.empty());
+
+    private final GenerationRollupService rollupService = new GenerationRollupService(rollupStore);
+
+    @Test
+    @DisplayName("Should answer a range of whole weeks in weeks with the clean energy share of every bucket")
+    void getRollup_withoutResolution_shouldUseCoarsestCoveringResolution() {
+        // given
+        rollupStore.ingest(GenerationTimeline.builder()
+                .interval(epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-06T00:30Z"))
+                .percentage("wind", 30.0).percentage("nuclear", 20.0).percentage("gas", 50.0)
+                .interval(epochSecond("2025-01-14T12:00Z"), epochSecond("2025-01-14T12:30Z"))
+                .percentage("wind", 10.0).percentage("gas", 90.0)
+                .build());
+
+        // when
+        GenerationRollupResponse weekly = rollupService.getRollup(
+                ZonedDateTime.parse("2025-01-06T00:00Z"), ZonedDateTime.parse("2025-01-20T00:00Z"), null);
+        GenerationRollupResponse hourly = rollupService.getRollup(
+                ZonedDateTime.parse("2025-01-06T00:00Z"), ZonedDateTime.parse("2025-01-20T00:00Z"), "hour");
+
+        // then
+        assertThat(weekly.resolution()).isEqualTo(RollupResolution.WEEK);
+        assertThat(weekly.buckets()).hasSize(2);
+        assertThat(weekly.buckets().get(0).start()).isEqualTo(ZonedDateTime.parse("2025-01-06T00:00Z"));
+        assertThat(weekly.buckets().get(0).end()).isEqualTo(ZonedDateTime.parse("2025-01-13T00:00Z"));
+        assertThat(weekly.buckets().get(0).cleanEnergyPerc()).isEqualTo(50.0);
+        assertThat(weekly.buckets().get(1).energyMix()).containsEntry("gas", 90.0);
+        assertThat(hourly.resolution()).isEqualTo(RollupResolution.HOUR);
+        assertThat(hourly.buckets().get(1).start()).isEqualTo(ZonedDateTime.parse("2025-01-14T12:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid ranges and report ranges without data")
+    void getRollup_invalidRange_shouldThrow() {
+        // given
+        ZonedDateTime from = ZonedDateTime.parse("2025-01-01T00:00Z");
+
+        // when & then
+        assertThatThrownBy(() -> rollupService.getRollup(from, from, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Rollup range must start before it ends");
+        assertThatThrownBy(() -> rollupService.getRollup(from, from.plusYears(5), "hour"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("must not span more than 10000 buckets");
+        assertThatThrownBy(() -> rollupService.getRollup(from, from.plusYears(1), null))
+                .isInstanceOf(NoGenerationFoundExcepion.class);
+    }
+
+    private static long epochSecond(String time) {
+        return ZonedDateTime.parse(time).toEpochSecond();
+    }
+}
@@ -1,28 +1,44 @@
 package org.codibly.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.FuelProfileProperties;
+import org.codibly.config.GenerationCacheProperties;
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.dto.request.ChargingWindowRequest;
+import org.codibly.dto.request.FleetScheduleRequest;
+import org.codibly.dto.request.VehicleChargingRequest;
+import org.codibly.dto.response.ChargingWindowBatchItemResponse;
 import org.codibly.dto.response.DailyGenerationResponse;
-import org.codibly.dto.response.GenerationResponse;
-import org.codibly.dto.response.GenerationResponse.GenerationEntry;
-import org.codibly.dto.response.GenerationResponse.GenerationEntry.FuelMix;
+import org.codibly.dto.response.FleetScheduleResponse;
 import org.codibly.dto.response.OptimalChargingWindowResponse;
 import org.codibly.exception.GenerationProviderConnectionException;
 import org.codibly.exception.NoGenerationFoundExcepion;
 import org.codibly.externalClient.CarbonIntensityClient;
 import org.codibly.model.EnergySource;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.service.profile.FuelProfiles;
+import org.codibly.time.SystemTimeProvider;
 import org.codibly.time.TimeProvider;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.stubbing.Answer;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestClientException;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -37,19 +53,38 @@ class GenerationServiceTest {
     @Mock
     private CarbonIntensityClient carbonIntensityClient;
 
-    @InjectMocks
     private GenerationService generationService;
 
+    private GenerationCache generationCache;
+
     private static final ZonedDateTime TEST_DAY_START = ZonedDateTime.parse("2025-01-01T00:00Z");
 
+    private static final GenerationFetchProperties.Hedge NO_HEDGE =
+            new GenerationFetchProperties.Hedge(false, 0.95, Duration.ofMillis(200));
+
+    @BeforeEach
+    void setUp() {
+        generationCache = new GenerationCache(
+                new GenerationDataLoader(carbonIntensityClient,
+                        new GenerationFetchProperties(Duration.ofDays(7), 4, NO_HEDGE), Executors.newVirtualThreadPerTaskExecutor(),
+                        timeProvider, Optional.empty(), new SimpleMeterRegistry()),
+                new SystemTimeProvider(Clock.fixed(TEST_DAY_START.toInstant(), ZoneOffset.UTC)),
+                new GenerationCacheProperties(Duration.ofMinutes(35), Duration.ofHours(2), 64, Duration.ofHours(6), Duration.ofMinutes(1), 4),
+                Executors.newVirtualThreadPerTaskExecutor()
+        );
+        generationService = new GenerationService(timeProvider, generationCache,
+                new FuelProfiles(new FuelProfileProperties(Map.of("renewable", Set.of("biomass", "hydro", "wind", "solar")))),
+                new SimpleMeterRegistry());
+    }
+
     @Test
     @DisplayName("Should find optimal charging window for 1-hour window")
     void findOptimalChargingWindow_for_1HourWindow() {
         // given
-        GenerationResponse mockResponse = mockGenerationResponse();
+        GenerationTimeline mockResponse = mockGenerationResponse();
 
         when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
-                .thenReturn(mockResponse);
+                .thenAnswer(withinRange(mockResponse));
         when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
         when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
 
@@ -66,14 +101,117 @@ class GenerationServiceTest {
         verify(timeProvider).getEndOfDay();
     }
 
+    @Test
+    @DisplayName("Should answer window requests from the table rebuilt after every refresh")
+    void findOptimalChargingWindow_shouldReadPrecomputedTable() {
+        // given
+        GenerationTimeline.Builder refreshed = GenerationTimeline.builder();
+        createEntry(refreshed, "2025-01-02T00:00Z", "2025-01-02T00:30Z", 0.0, 90.0, 0.0, 10.0, 0.0);
+        createEntry(refreshed, "2025-01-02T00:30Z", "2025-01-02T01:00Z", 0.0, 80.0, 0.0, 10.0, 0.0);
+        createEntry(refreshed, "2025-01-02T01:00Z", "2025-01-02T01:30Z", 0.0, 10.0, 0.0, 10.0, 0.0);
+
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()))
+                .thenAnswer(withinRange(refreshed.build()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+
+        // when
+        OptimalChargingWindowResponse first = generationService.findOptimalChargingWindow(1);
+        OptimalChargingWindowResponse repeated = generationService.findOptimalChargingWindow(1);
+        generationCache.refresh();
+        OptimalChargingWindowResponse afterRefresh = generationService.findOptimalChargingWindow(1);
+
+        // then
+        assertThat(repeated).isSameAs(first);
+        assertThat(first.start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:00Z"));
+        assertThat(afterRefresh.start()).isEqualTo(ZonedDateTime.parse("2025-01-02T00:00Z"));
+        assertThat(afterRefresh.averageCleanEnergyPercentage()).isEqualTo(95);
+        assertThatThrownBy(() -> generationService.findOptimalChargingWindow(2))
+                .isInstanceOf(NoGenerationFoundExcepion.class);
+
+        verify(carbonIntensityClient, times(2)).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should serve window requests from the index without going to the cache again")
+    void findOptimalChargingWindow_indexBuilt_shouldNotReadCache() {
+        // given
+        GenerationCache cache = mock(GenerationCache.class);
+        when(cache.getVersioned(any()))
+                .thenReturn(new Versioned<>(new DataVersion(1, TEST_DAY_START.toInstant()), mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(TEST_DAY_START.toInstant());
+        GenerationService service = new GenerationService(timeProvider, cache,
+                new FuelProfiles(new FuelProfileProperties(Map.of())), new SimpleMeterRegistry());
+
+        // when
+        service.findOptimalChargingWindow(1);
+        OptimalChargingWindowResponse bounded = service.findOptimalChargingWindow(
+                new ChargingWindowRequest(1, null, ZonedDateTime.parse("2025-01-03T02:00Z")), List.of());
+
+        // then
+        assertThat(bounded.start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:00Z"));
+        verify(cache, times(1)).getVersioned(any());
+    }
+
+    @Test
+    @DisplayName("Should label windows with the version of the timeline the index was built from")
+    void findVersionedOptimalChargingWindow_shouldReturnVersionOfIndex() {
+        // given
+        GenerationCache cache = mock(GenerationCache.class);
+        DataVersion indexed = new DataVersion(1, TEST_DAY_START.toInstant());
+        when(cache.getVersioned(any())).thenReturn(new Versioned<>(indexed, mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        GenerationService service = new GenerationService(timeProvider, cache,
+                new FuelProfiles(new FuelProfileProperties(Map.of())), new SimpleMeterRegistry());
+
+        // when
+        DataVersion version = service.getChargingWindowVersion(1);
+        Versioned<OptimalChargingWindowResponse> window =
+                service.findVersionedOptimalChargingWindow(new ChargingWindowRequest(1, null, null), List.of());
+        Versioned<List<OptimalChargingWindowResponse>> top = service.findVersionedTopChargingWindows(1, 2, false, List.of());
+
+        // then
+        assertThat(version).isEqualTo(indexed);
+        assertThat(window.version()).isEqualTo(indexed);
+        assertThat(top.version()).isEqualTo(indexed);
+        verify(cache, never()).version(any());
+    }
+
+    @Test
+    @DisplayName("Should read the best window of every length from one index together with its version")
+    void findVersionedBestChargingWindows_shouldReturnWindowsOfOneIndex() {
+        // given
+        GenerationCache cache = mock(GenerationCache.class);
+        DataVersion indexed = new DataVersion(1, TEST_DAY_START.toInstant());
+        when(cache.getVersioned(any())).thenReturn(new Versioned<>(indexed, mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        GenerationService service = new GenerationService(timeProvider, cache,
+                new FuelProfiles(new FuelProfileProperties(Map.of())), new SimpleMeterRegistry());
+
+        // when
+        Versioned<Map<Integer, OptimalChargingWindowResponse>> windows = service.findVersionedBestChargingWindows();
+
+        // then
+        assertThat(windows.version()).isEqualTo(indexed);
+        assertThat(windows.value()).containsKeys(1, 2, 3)
+                .containsEntry(1, service.findOptimalChargingWindow(1))
+                .containsEntry(3, service.findOptimalChargingWindow(3));
+        verify(cache, times(1)).getVersioned(any());
+    }
+
     @Test
     @DisplayName("Should find optimal charging window for 3-hour window")
     void findOptimalChargingWindow_for_3HourWindow() {
         // given
-        GenerationResponse mockResponse = mockGenerationResponse();
+        GenerationTimeline mockResponse = mockGenerationResponse();
 
         when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
-                .thenReturn(mockResponse);
+                .thenAnswer(withinRange(mockResponse));
 
         when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
         when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
@@ -101,14 +239,205 @@ class GenerationServiceTest {
                 .hasMessageContaining("Charging window length must be between 1 and 6 hours");
     }
 
+    @Test
+    @DisplayName("Should rank the best charging windows with and without overlap")
+    void findTopChargingWindows_shouldRankWindows() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+
+        // when
+        List<OptimalChargingWindowResponse> separate = generationService.findTopChargingWindows(1, 3, false, List.of());
+        List<OptimalChargingWindowResponse> overlapping = generationService.findTopChargingWindows(1, 3, true, List.of());
+
+        // then
+        assertThat(separate).extracting(OptimalChargingWindowResponse::start).containsExactly(
+                ZonedDateTime.parse("2025-01-03T00:00Z"),
+                ZonedDateTime.parse("2025-01-02T00:30Z"));
+        assertThat(separate).extracting(OptimalChargingWindowResponse::averageCleanEnergyPercentage)
+                .containsExactly(100.0, 45.0);
+        assertThat(overlapping).extracting(OptimalChargingWindowResponse::start).containsExactly(
+                ZonedDateTime.parse("2025-01-03T00:00Z"),
+                ZonedDateTime.parse("2025-01-03T00:30Z"),
+                ZonedDateTime.parse("2025-01-02T01:00Z"));
+
+        verify(carbonIntensityClient).getGenerationMix(anyString(), anyString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 11, -1})
+    @DisplayName("Should throw IllegalArgumentException for an invalid number of charging windows")
+    void findTopChargingWindows_InvalidCount_ShouldThrow_IllegalArgumentException(int invalidCount) {
+        // when & then
+        assertThatThrownBy(() -> generationService.findTopChargingWindows(1, invalidCount, false, List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Number of charging windows must be between 1 and 10");
+
+        verifyNoInteractions(carbonIntensityClient);
+    }
+
+    @Test
+    @DisplayName("Should answer every batch request from a single timeline load")
+    void findOptimalChargingWindows_shouldRespectEarliestStartAndDeadline() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(TEST_DAY_START.toInstant());
+
+        List<ChargingWindowRequest> requests = List.of(
+                new ChargingWindowRequest(1, null, null),
+                new ChargingWindowRequest(1, null, ZonedDateTime.parse("2025-01-02T02:00Z")),
+                new ChargingWindowRequest(1, ZonedDateTime.parse("2025-01-03T00:30Z"), null)
+        );
+
+        // when
+        List<OptimalChargingWindowResponse> result = generationService.findOptimalChargingWindows(requests).stream()
+                .map(ChargingWindowBatchItemResponse::window)
+                .toList();
+
+        // then
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0).start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:00Z"));
+        assertThat(result.get(0).averageCleanEnergyPercentage()).isEqualTo(100);
+        assertThat(result.get(1).start()).isEqualTo(ZonedDateTime.parse("2025-01-02T00:30Z"));
+        assertThat(result.get(1).end()).isEqualTo(ZonedDateTime.parse("2025-01-02T01:30Z"));
+        assertThat(result.get(1).averageCleanEnergyPercentage()).isEqualTo(45);
+        assertThat(result.get(2).start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:30Z"));
+        assertThat(result.get(2).end()).isEqualTo(ZonedDateTime.parse("2025-01-03T01:30Z"));
+
+        verify(carbonIntensityClient).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should find the optimal window between an earliest start today and a deadline tomorrow")
+    void findOptimalChargingWindow_withBounds_shouldSearchFromToday() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(TEST_DAY_START.toInstant());
+
+        ChargingWindowRequest request = new ChargingWindowRequest(1,
+                ZonedDateTime.parse("2025-01-01T23:30Z"), ZonedDateTime.parse("2025-01-02T01:00Z"));
+
+        // when
+        OptimalChargingWindowResponse bounded = generationService.findOptimalChargingWindow(request, List.of());
+        OptimalChargingWindowResponse unbounded = generationService.findOptimalChargingWindow(1);
+
+        // then
+        assertThat(bounded.start()).isEqualTo(ZonedDateTime.parse("2025-01-01T23:30Z"));
+        assertThat(bounded.end()).isEqualTo(ZonedDateTime.parse("2025-01-02T00:30Z"));
+        assertThat(unbounded.start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:00Z"));
+
+        verify(carbonIntensityClient).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should not return a window that starts before now when the earliest start is in the past")
+    void findOptimalChargingWindow_earliestStartInPast_shouldStartFromNow() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(ZonedDateTime.parse("2025-01-02T00:00Z").toInstant());
+
+        ChargingWindowRequest pastStart = new ChargingWindowRequest(1,
+                ZonedDateTime.parse("2025-01-01T23:00Z"), ZonedDateTime.parse("2025-01-02T01:30Z"));
+        ChargingWindowRequest pastDeadline = new ChargingWindowRequest(1,
+                null, ZonedDateTime.parse("2025-01-01T23:59Z"));
+
+        // when
+        OptimalChargingWindowResponse result = generationService.findOptimalChargingWindow(pastStart, List.of());
+
+        // then
+        assertThat(result.start()).isEqualTo(ZonedDateTime.parse("2025-01-02T00:30Z"));
+        assertThatThrownBy(() -> generationService.findOptimalChargingWindow(pastDeadline, List.of()))
+                .isInstanceOf(NoGenerationFoundExcepion.class);
+    }
+
+    @Test
+    @DisplayName("Should return an error entry for a batch request that leaves no room for its window")
+    void findOptimalChargingWindows_windowDoesNotFit_shouldReturnErrorEntry() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(TEST_DAY_START.toInstant());
+
+        List<ChargingWindowRequest> requests = List.of(
+                new ChargingWindowRequest(1, null, null),
+                new ChargingWindowRequest(3, ZonedDateTime.parse("2025-01-03T00:00Z"), null)
+        );
+
+        // when
+        List<ChargingWindowBatchItemResponse> result = generationService.findOptimalChargingWindows(requests);
+
+        // then
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).window().start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:00Z"));
+        assertThat(result.get(0).error()).isNull();
+        assertThat(result.get(1).window()).isNull();
+        assertThat(result.get(1).error()).isEqualTo("Not enough data to calculate the optimal window");
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when the earliest start is not before the deadline")
+    void findOptimalChargingWindows_InvalidRange_ShouldThrow_IllegalArgumentException() {
+        // given
+        ZonedDateTime time = ZonedDateTime.parse("2025-01-03T00:00Z");
+        List<ChargingWindowRequest> requests = List.of(new ChargingWindowRequest(1, time, time));
+
+        // when & then
+        assertThatThrownBy(() -> generationService.findOptimalChargingWindows(requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Earliest start must be before the deadline");
+
+        verifyNoInteractions(carbonIntensityClient);
+    }
+
+    @Test
+    @DisplayName("Should schedule a fleet into the greenest slots within the site capacity")
+    void scheduleFleetCharging_shouldFillGreenestSlots() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(TEST_DAY_START.plusDays(1).toInstant());
+
+        FleetScheduleRequest request = new FleetScheduleRequest(10, List.of(
+                new VehicleChargingRequest("van-1", 10, 10, null, null),
+                new VehicleChargingRequest("van-2", 5, 10, null, ZonedDateTime.parse("2025-01-02T01:30Z"))
+        ));
+
+        // when
+        FleetScheduleResponse result = generationService.scheduleFleetCharging(request);
+
+        // then
+        assertThat(result.energyKwh()).isEqualTo(15);
+        assertThat(result.vehicles().get(0).vehicleId()).isEqualTo("van-1");
+        assertThat(result.vehicles().get(0).slots()).hasSize(2);
+        assertThat(result.vehicles().get(0).cleanEnergyPercentage()).isEqualTo(100);
+        assertThat(result.vehicles().get(1).slots()).singleElement()
+                .satisfies(slot -> assertThat(slot.start()).isEqualTo(ZonedDateTime.parse("2025-01-02T01:00Z")));
+        assertThat(result.cleanEnergyPercentage()).isEqualTo(250.0 / 3);
+    }
+
     @Test
     @DisplayName("Should calculate average clean energy for the next 3 days")
     void getThreeDaysAverage_ForNext3Days() {
         // given
-        GenerationResponse resp = mockThreeDaysResponse();
+        GenerationTimeline resp = mockThreeDaysResponse();
 
         when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
-                .thenReturn(resp);
+                .thenAnswer(withinRange(resp));
         when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
         when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
 
@@ -135,6 +464,54 @@ class GenerationServiceTest {
         verify(carbonIntensityClient).getGenerationMix(anyString(), anyString());
     }
 
+    @Test
+    @DisplayName("Should report the share of every requested fuel profile for each day")
+    void getThreeDaysAverage_withProfiles_shouldReportProfileShares() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockThreeDaysResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+
+        // when
+        List<DailyGenerationResponse> result = generationService.getThreeDaysAverage(List.of("renewable", "clean"));
+
+        // then
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0).profileShares()).containsExactlyInAnyOrderEntriesOf(Map.of("renewable", 2.0, "clean", 7.0));
+        assertThat(result.get(1).profileShares()).containsExactlyInAnyOrderEntriesOf(Map.of("renewable", 31.5, "clean", 37.5));
+        assertThat(result.get(1).cleanEnergyPerc()).isEqualTo(37.5);
+    }
+
+    @Test
+    @DisplayName("Should report the average profile shares of the optimal charging window")
+    void findOptimalChargingWindow_withProfiles_shouldReportProfileShares() {
+        // given
+        when(carbonIntensityClient.getGenerationMix(anyString(), anyString()))
+                .thenAnswer(withinRange(mockGenerationResponse()));
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getInstant()).thenReturn(TEST_DAY_START.toInstant());
+
+        // when
+        OptimalChargingWindowResponse result = generationService.findOptimalChargingWindow(1, List.of("renewable"));
+
+        // then
+        assertThat(result.start()).isEqualTo(ZonedDateTime.parse("2025-01-03T00:00Z"));
+        assertThat(result.averageCleanEnergyPercentage()).isEqualTo(100);
+        assertThat(result.profileShares()).containsExactlyEntriesOf(Map.of("renewable", 55.0));
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException for an unknown fuel profile")
+    void findOptimalChargingWindow_unknownProfile_ShouldThrow_IllegalArgumentException() {
+        // when & then
+        assertThatThrownBy(() -> generationService.findOptimalChargingWindow(1, List.of("geothermal")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown fuel profile: geothermal");
+        verifyNoInteractions(carbonIntensityClient);
+    }
+
     @Test
     @DisplayName("Should throw NoGenerationFoundExcepion when API returns no data")
     void fetchGenerationData_NoData_ShouldThrow_NoGenerationFoundExcepion() {
@@ -173,54 +550,57 @@ class GenerationServiceTest {
         verify(timeProvider).getEndOfDay();
     }
 
-    private GenerationResponse mockGenerationResponse() {
+    private GenerationTimeline mockGenerationResponse() {
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
 
-        GenerationEntry d1e1TodayExcluded = createEntry("2025-01-01T23:00Z", "2025-01-01T23:30Z",
+        // d1e1, d1e2: today, excluded
+        createEntry(builder, "2025-01-01T23:00Z", "2025-01-01T23:30Z",
                 0.0, 999999.0, 0.0, 99999.0, 0.0);
-        GenerationEntry d1e2TodayExcluded = createEntry("2025-01-01T23:30Z", "2025-01-02T00:00Z",
+        createEntry(builder, "2025-01-01T23:30Z", "2025-01-02T00:00Z",
                 0.0, 8099999.0, 0.0, 8099999.0, 0.0);
-        GenerationEntry d2e1 = createEntry("2025-01-02T00:00Z", "2025-01-02T00:30Z",
+        createEntry(builder, "2025-01-02T00:00Z", "2025-01-02T00:30Z",
                 0.0, 10.0, 0.0, 20.0, 0.0);
-        GenerationEntry d2e2 = createEntry("2025-01-02T00:30Z", "2025-01-02T01:00Z",
+        createEntry(builder, "2025-01-02T00:30Z", "2025-01-02T01:00Z",
                 0.0, 15.0, 0.0, 25.0, 0.0);
-        GenerationEntry d2e3 = createEntry("2025-01-02T01:00Z", "2025-01-02T01:30Z",
+        createEntry(builder, "2025-01-02T01:00Z", "2025-01-02T01:30Z",
                 0.0, 20.0, 0.0, 30.0, 0.0);
-        GenerationEntry d3e1 = createEntry("2025-01-03T00:00Z", "2025-01-03T00:30Z",
+        createEntry(builder, "2025-01-03T00:00Z", "2025-01-03T00:30Z",
                 0.0, 60.0, 0.0, 40.0, 0.0);
-        GenerationEntry d3e2 = createEntry("2025-01-03T00:30Z", "2025-01-03T01:00Z",
+        createEntry(builder, "2025-01-03T00:30Z", "2025-01-03T01:00Z",
                 0.0, 30.0, 0.0, 70.0, 0.0);
-        GenerationEntry d3e3 = createEntry("2025-01-03T01:00Z", "2025-01-03T01:30Z",
+        createEntry(builder, "2025-01-03T01:00Z", "2025-01-03T01:30Z",
                 0.0, 50.0, 0.0, 50.0, 0.0);
-        GenerationEntry day4OutOfRange = createEntry("2025-01-04T00:00Z", "2025-01-04T00:30Z",
+        // day 4 and far future: out of range
+        createEntry(builder, "2025-01-04T00:00Z", "2025-01-04T00:30Z",
                 0.0, 200.0, 0.0, 200.0, 0.0);
-        GenerationEntry farFuture = createEntry("3000-01-01T00:00Z", "3000-01-01T01:00Z",
+        createEntry(builder, "3000-01-01T00:00Z", "3000-01-01T01:00Z",
                 1111, 0.0, 0.0, 0.0, 0.0);
 
-        return new GenerationResponse(List.of(
-                d1e1TodayExcluded, d1e2TodayExcluded, d2e1, d2e2, d2e3,
-                d3e1, d3e2, d3e3, day4OutOfRange, farFuture
-        ));
+        return builder.build();
     }
 
-    private GenerationResponse mockThreeDaysResponse() {
-        GenerationEntry d1e1 = createEntry("2025-01-01T00:00Z", "2025-01-01T00:30Z",
+    private GenerationTimeline mockThreeDaysResponse() {
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+
+        createEntry(builder, "2025-01-01T00:00Z", "2025-01-01T00:30Z",
                 0.0, 5.0, 0.0, 2.0, 0.0);
-        GenerationEntry d1e2 = createEntry("2025-01-01T00:00Z", "2025-01-01T01:00Z",
+        createEntry(builder, "2025-01-01T00:00Z", "2025-01-01T01:00Z",
                 0.0, 5.0, 0.0, 2.0, 0.0);
-        GenerationEntry d2e1 = createEntry("2025-01-02T00:00Z", "2025-01-02T00:30Z",
+        createEntry(builder, "2025-01-02T00:00Z", "2025-01-02T00:30Z",
                 0.0, 10.0, 0.0, 50.0, 0.0);
-        GenerationEntry d2e2 = createEntry("2025-01-02T00:30Z", "2025-01-02T01:00Z",
+        createEntry(builder, "2025-01-02T00:30Z", "2025-01-02T01:00Z",
                 0.0, 2.0, 0.0, 13.0, 0.0);
-        GenerationEntry d3e1 = createEntry("2025-01-03T00:00Z", "2025-01-03T00:30Z",
+        createEntry(builder, "2025-01-03T00:00Z", "2025-01-03T00:30Z",
                 0.0, 5.0, 0.0, 13.0, 0.0);
-        GenerationEntry d3e2 = createEntry("2025-01-03T00:30Z", "2025-01-03T10:00Z",
+        createEntry(builder, "2025-01-03T00:30Z", "2025-01-03T10:00Z",
                 0.0, 5.0, 0.0, 13.0, 0.0);
 
-        return new GenerationResponse(List.of(d1e1, d1e2, d2e1, d2e2, d3e1, d3e2));
+        return builder.build();
     }
 
-    private GenerationEntry createEntry(String from, String to, double biomass, double nuclear, double hydro, double wind, double solar) {
-        return entry(from, to, Map.of(
+    private void createEntry(GenerationTimeline.Builder builder, String from, String to,
+                             double biomass, double nuclear, double hydro, double wind, double solar) {
+        entry(builder, from, to, Map.of(
                 EnergySource.BIOMASS, biomass,
                 EnergySource.NUCLEAR, nuclear,
                 EnergySource.HYDRO, hydro,
@@ -229,14 +609,17 @@ class GenerationServiceTest {
         ));
     }
 
-    private GenerationEntry entry(String from, String to, Map<EnergySource, Double> energyShare) {
-        return new GenerationEntry(
-                ZonedDateTime.parse(from),
-                ZonedDateTime.parse(to),
-                energyShare.entrySet().stream()
-                        .map(e -> new FuelMix(e.getKey().getFuelName(), e.getValue()))
-                        .toList()
-        );
+    private void entry(GenerationTimeline.Builder builder, String from, String to, Map<EnergySource, Double> energyShare) {
+        builder.interval(ZonedDateTime.parse(from).toEpochSecond(), ZonedDateTime.parse(to).toEpochSecond());
+        energyShare.forEach((source, perc) -> builder.percentage(source.getFuelName(), perc));
     }
 
-}
\ No newline at end of file
+    /**
+     * Answers like the client, which only returns the entries within the requested range.
+     */
+    private static Answer<GenerationTimeline> withinRange(GenerationTimeline timeline) {
+        return invocation -> timeline.slice(
+                ZonedDateTime.parse(invocation.<String>getArgument(0)).toEpochSecond(),
+                ZonedDateTime.parse(invocation.<String>getArgument(1)).toEpochSecond());
+    }
+}
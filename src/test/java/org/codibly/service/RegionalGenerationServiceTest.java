@@ -0,0 +1,178 @@
+package org.codibly.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.codibly.config.FuelProfileProperties;
+import org.codibly.config.GenerationCacheProperties;
+import org.codibly.config.GenerationFetchProperties;
+import org.codibly.dto.response.RegionalChargingWindowResponse;
+import org.codibly.dto.response.RegionalGenerationResponse;
+import org.codibly.externalClient.CarbonIntensityClient;
+import org.codibly.model.GenerationTimeline;
+import org.codibly.model.Region;
+import org.codibly.service.profile.FuelProfiles;
+import org.codibly.time.SystemTimeProvider;
+import org.codibly.time.TimeProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RegionalGenerationServiceTest {
+
+    @Mock
+    private TimeProvider timeProvider;
+
+    @Mock
+    private CarbonIntensityClient carbonIntensityClient;
+
+    private ExecutorService executor;
+
+    private GenerationService generationService;
+
+    private GenerationCache generationCache;
+
+    private RegionalGenerationService regionalGenerationService;
+
+    private static final ZonedDateTime TEST_DAY_START = ZonedDateTime.parse("2025-01-01T00:00Z");
+
+    private static final GenerationFetchProperties.Hedge NO_HEDGE =
+            new GenerationFetchProperties.Hedge(false, 0.95, Duration.ofMillis(200));
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        generationCache = new GenerationCache(
+                new GenerationDataLoader(carbonIntensityClient,
+                        new GenerationFetchProperties(Duration.ofDays(7), 4, NO_HEDGE), executor,
+                        timeProvider, Optional.empty(), new SimpleMeterRegistry()),
+                new SystemTimeProvider(Clock.fixed(TEST_DAY_START.toInstant(), ZoneOffset.UTC)),
+                new GenerationCacheProperties(Duration.ofMinutes(35), Duration.ofHours(2), 64, Duration.ofHours(6), Duration.ofMinutes(1), 4),
+                executor
+        );
+        generationService = new GenerationService(timeProvider, generationCache,
+                new FuelProfiles(new FuelProfileProperties(Map.of())), new SimpleMeterRegistry());
+        regionalGenerationService = new RegionalGenerationService(generationService, generationCache,
+                new GenerationFetchProperties(Duration.ofDays(7), 4, NO_HEDGE), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Should fetch every requested region once and return its averages in the requested order")
+    void getThreeDaysAverage_shouldReturnAveragesPerRegion() {
+        // given
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START.plusDays(1));
+        when(carbonIntensityClient.getRegionalGenerationMix(anyString(), anyString(), eq(13)))
+                .thenReturn(timeline(TEST_DAY_START, 80));
+        when(carbonIntensityClient.getRegionalGenerationMix(anyString(), anyString(), eq(1)))
+                .thenReturn(timeline(TEST_DAY_START, 20));
+
+        // when
+        List<RegionalGenerationResponse> result = regionalGenerationService.getThreeDaysAverage(List.of(13, 1, 13)).join();
+
+        // then
+        assertThat(result).extracting(RegionalGenerationResponse::regionId).containsExactly(13, 1);
+        assertThat(result.get(0).region()).isEqualTo("London");
+        assertThat(result.get(0).days().get(0).cleanEnergyPerc()).isEqualTo(80);
+        assertThat(result.get(1).days().get(0).cleanEnergyPerc()).isEqualTo(20);
+
+        regionalGenerationService.getThreeDaysAverage(List.of(1, 13)).join();
+        verify(carbonIntensityClient, times(1)).getRegionalGenerationMix(anyString(), anyString(), eq(13));
+        verify(carbonIntensityClient, times(1)).getRegionalGenerationMix(anyString(), anyString(), eq(1));
+        verify(carbonIntensityClient, never()).getGenerationMix(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should find the optimal charging window of all regions when none are requested")
+    void findOptimalChargingWindow_withoutRegions_shouldCoverAllRegions() {
+        // given
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(carbonIntensityClient.getRegionalGenerationMix(anyString(), anyString(), anyInt()))
+                .thenReturn(timeline(TEST_DAY_START.plusDays(1), 50));
+
+        // when
+        List<RegionalChargingWindowResponse> result = regionalGenerationService.findOptimalChargingWindow(1, null).join();
+
+        // then
+        assertThat(result).hasSize(Region.values().length);
+        assertThat(result.get(0).regionId()).isEqualTo(1);
+        assertThat(result.get(0).window().start()).isEqualTo(TEST_DAY_START.plusDays(1));
+        assertThat(result.get(0).window().averageCleanEnergyPercentage()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should load no more regions at the same time than the fetch concurrency allows")
+    void findOptimalChargingWindow_allRegions_shouldBoundConcurrentRegions() {
+        // given
+        RegionalGenerationService boundedService = new RegionalGenerationService(generationService, generationCache,
+                new GenerationFetchProperties(Duration.ofDays(7), 2, NO_HEDGE), executor);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(timeProvider.getStartOfDay()).thenReturn(TEST_DAY_START);
+        when(timeProvider.getEndOfDay()).thenReturn(TEST_DAY_START);
+        when(carbonIntensityClient.getRegionalGenerationMix(anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return timeline(TEST_DAY_START.plusDays(1), 50);
+        });
+
+        // when
+        List<RegionalChargingWindowResponse> result = boundedService.findOptimalChargingWindow(1, null).join();
+
+        // then
+        assertThat(result).hasSize(Region.values().length);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown region id before fetching any data")
+    void findOptimalChargingWindow_unknownRegion_shouldThrow() {
+        // when & then
+        assertThatThrownBy(() -> regionalGenerationService.findOptimalChargingWindow(1, List.of(1, 99)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown region id: 99");
+        verify(carbonIntensityClient, never()).getRegionalGenerationMix(anyString(), anyString(), anyInt());
+    }
+
+    private static GenerationTimeline timeline(ZonedDateTime from, double windPerc) {
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        long start = from.toEpochSecond();
+        for (int i = 0; i < 4; i++) {
+            builder.interval(start + i * 1800L, start + (i + 1) * 1800L);
+            builder.percentage("wind", windPerc);
+            builder.percentage("gas", 100 - windPerc);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,118 @@
+package org.codibly.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    @DisplayName("Should run one call for concurrent callers of the same key and share its result")
+    void execute_concurrentSameKey_shouldCoalesce() throws Exception {
+        // given
+        int callers = 8;
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // when
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("range", () -> {
+                invocations.incrementAndGet();
+                await(release);
+                return "data";
+            })));
+        }
+        while (singleFlight.getExecutedCalls() + singleFlight.getCoalescedCalls() < callers) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("data");
+        }
+        assertThat(invocations).hasValue(1);
+        assertThat(singleFlight.getExecutedCalls()).isEqualTo(1);
+        assertThat(singleFlight.getCoalescedCalls()).isEqualTo(callers - 1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run a new call once the previous one for the key has finished")
+    void execute_sequentialCalls_shouldNotCoalesce() {
+        // when
+        singleFlight.execute("range", () -> "first");
+        String second = singleFlight.execute("range", () -> "second");
+
+        // then
+        assertThat(second).isEqualTo("second");
+        assertThat(singleFlight.getExecutedCalls()).isEqualTo(2);
+        assertThat(singleFlight.getCoalescedCalls()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rethrow the exception of the call and not keep it for later callers")
+    void execute_failingCall_shouldRethrow() {
+        // when & then
+        assertThatThrownBy(() -> singleFlight.execute("range", () -> {
+            throw new IllegalStateException("API down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("API down");
+
+        assertThat(singleFlight.execute("range", () -> "data")).isEqualTo("data");
+    }
+
+    @Test
+    @DisplayName("Should release waiting callers when the running call throws an error")
+    void execute_callThrowsError_shouldFailWaitingCallers() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("range", () -> {
+            await(release);
+            throw new OutOfMemoryError("heap");
+        }));
+        while (singleFlight.getExecutedCalls() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // when
+        Future<String> follower = executor.submit(() -> singleFlight.execute("range", () -> "data"));
+        while (singleFlight.getCoalescedCalls() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // then
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(OutOfMemoryError.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(OutOfMemoryError.class);
+        executor.shutdownNow();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
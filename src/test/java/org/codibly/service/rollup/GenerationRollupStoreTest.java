@@ -0,0 +1,197 @@
+package org.codibly.service.rollup;
+
+import org.codibly.model.GenerationTimeline;
+import org.codibly.model.RollupResolution;
+import org.codibly.service.GenerationDataLoader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class GenerationRollupStoreTest {
+
+    private final GenerationDataLoader generationDataLoader = mock(GenerationDataLoader.class);
+
+    private final GenerationRollupStore rollupStore = new GenerationRollupStore(generationDataLoader, Optional.empty());
+
+    @Test
+    @DisplayName("Should keep the averages of every resolution and register for loaded chunks")
+    void ingest_shouldAggregateEveryResolution() {
+        // given
+        GenerationTimeline timeline = GenerationTimeline.builder()
+                .interval(epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-06T00:30Z"))
+                .percentage("wind", 40.0).percentage("gas", 60.0)
+                .interval(epochSecond("2025-01-06T00:30Z"), epochSecond("2025-01-06T01:00Z"))
+                .percentage("wind", 60.0)
+                .interval(epochSecond("2025-01-13T00:00Z"), epochSecond("2025-01-13T00:30Z"))
+                .percentage("wind", 10.0).percentage("gas", 90.0)
+                .build();
+
+        // when
+        rollupStore.ingest(timeline);
+
+        // then
+        long from = epochSecond("2025-01-01T00:00Z");
+        long to = epochSecond("2025-02-01T00:00Z");
+        List<RollupBucket> weeks = rollupStore.query(from, to, RollupResolution.WEEK);
+        assertThat(weeks).extracting(RollupBucket::start)
+                .containsExactly(epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-13T00:00Z"));
+        assertThat(weeks.get(0).averages()).containsEntry("wind", 50.0).containsEntry("gas", 60.0);
+        assertThat(weeks.get(0).end()).isEqualTo(epochSecond("2025-01-13T00:00Z"));
+
+        List<RollupBucket> months = rollupStore.query(from, to, RollupResolution.MONTH);
+        assertThat(months).hasSize(1);
+        assertThat(months.get(0).averages().get("wind")).isCloseTo(110.0 / 3, within(1e-9));
+        assertThat(months.get(0).averages()).containsEntry("gas", 75.0);
+        assertThat(rollupStore.query(from, to, RollupResolution.HOUR)).hasSize(2);
+
+        verify(generationDataLoader).addIngestListener(any());
+    }
+
+    @Test
+    @DisplayName("Should replace revised intervals and ignore intervals loaded again unchanged")
+    void ingest_revisedInterval_shouldReplaceItsValues() {
+        // given
+        rollupStore.ingest(interval("2025-01-06T00:00Z", 40.0));
+        rollupStore.ingest(interval("2025-01-06T00:30Z", 60.0));
+
+        // when
+        rollupStore.ingest(interval("2025-01-06T00:00Z", 40.0));
+        rollupStore.ingest(interval("2025-01-06T00:30Z", 20.0));
+
+        // then
+        List<RollupBucket> days = rollupStore.query(
+                epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-07T00:00Z"), RollupResolution.DAY);
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).averages()).containsEntry("wind", 30.0);
+        assertThat(rollupStore.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should match averages recalculated from the intervals after many revisions")
+    void ingest_manyRevisions_shouldMatchRecalculation() {
+        // given
+        Random random = new Random(3);
+        double[] latest = new double[48];
+        boolean[] loaded = new boolean[latest.length];
+        long dayStart = epochSecond("2025-03-01T00:00Z");
+
+        // when
+        for (int round = 0; round < 500; round++) {
+            int i = random.nextInt(latest.length);
+            latest[i] = random.nextDouble() * 100;
+            loaded[i] = true;
+            rollupStore.ingest(GenerationTimeline.builder()
+                    .interval(dayStart + i * 1800L, dayStart + (i + 1) * 1800L)
+                    .percentage("solar", latest[i])
+                    .build());
+        }
+
+        // then
+        List<RollupBucket> buckets = rollupStore.query(dayStart, dayStart + 86_400, RollupResolution.DAY);
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < latest.length; i++) {
+            if (loaded[i]) {
+                sum += latest[i];
+                count++;
+            }
+        }
+        assertThat(rollupStore.size()).isEqualTo(count);
+        assertThat(buckets.get(0).averages().get("solar")).isCloseTo(sum / count, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Should drop intervals past the revision horizon and ignore later copies of them")
+    void ingest_beyondRevisionHorizon_shouldKeepIntervalsFinal() {
+        // given
+        rollupStore.ingest(interval("2025-01-01T00:00Z", 40.0));
+        rollupStore.ingest(interval("2025-01-06T00:00Z", 60.0));
+
+        // when
+        rollupStore.ingest(interval("2025-01-01T00:00Z", 0.0));
+
+        // then
+        assertThat(rollupStore.size()).isEqualTo(1);
+        List<RollupBucket> days = rollupStore.query(
+                epochSecond("2025-01-01T00:00Z"), epochSecond("2025-01-02T00:00Z"), RollupResolution.DAY);
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).averages()).containsEntry("wind", 40.0);
+    }
+
+    @Test
+    @DisplayName("Should add backfilled intervals past the revision horizon once")
+    void ingest_backfillBeyondRevisionHorizon_shouldAddNewIntervals() {
+        // given
+        rollupStore.ingest(interval("2025-01-06T00:00Z", 60.0));
+
+        // when
+        rollupStore.ingest(interval("2025-01-01T00:00Z", 40.0));
+        rollupStore.ingest(interval("2025-01-01T00:30Z", 20.0));
+        rollupStore.ingest(interval("2025-01-01T00:00Z", 0.0));
+
+        // then
+        assertThat(rollupStore.size()).isEqualTo(1);
+        List<RollupBucket> days = rollupStore.query(
+                epochSecond("2025-01-01T00:00Z"), epochSecond("2025-01-02T00:00Z"), RollupResolution.DAY);
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).averages()).containsEntry("wind", 30.0);
+    }
+
+    @Test
+    @DisplayName("Should leave out the bucket that extends past the end of the range")
+    void query_toInsideBucket_shouldEndAtPreviousBucket() {
+        // given
+        rollupStore.ingest(interval("2025-01-06T00:00Z", 40.0));
+        rollupStore.ingest(interval("2025-01-07T00:00Z", 60.0));
+
+        // when
+        List<RollupBucket> toMidnight = rollupStore.query(
+                epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-08T00:00Z"), RollupResolution.DAY);
+        List<RollupBucket> toNoon = rollupStore.query(
+                epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-07T12:00Z"), RollupResolution.DAY);
+
+        // then
+        assertThat(toMidnight).hasSize(2);
+        assertThat(toNoon).extracting(RollupBucket::start).containsExactly(epochSecond("2025-01-06T00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should leave out the bucket that only partly follows the start of the range")
+    void query_fromInsideBucket_shouldStartAtNextBucket() {
+        // given
+        rollupStore.ingest(interval("2025-01-06T00:00Z", 40.0));
+        rollupStore.ingest(interval("2025-01-07T00:00Z", 60.0));
+
+        // when
+        List<RollupBucket> fromMidnight = rollupStore.query(
+                epochSecond("2025-01-06T00:00Z"), epochSecond("2025-01-08T00:00Z"), RollupResolution.DAY);
+        List<RollupBucket> fromNoon = rollupStore.query(
+                epochSecond("2025-01-06T12:00Z"), epochSecond("2025-01-08T00:00Z"), RollupResolution.DAY);
+
+        // then
+        assertThat(fromMidnight).hasSize(2);
+        assertThat(fromNoon).extracting(RollupBucket::start).containsExactly(epochSecond("2025-01-07T00:00Z"));
+    }
+
+    private static GenerationTimeline interval(String start, double wind) {
+        long from = epochSecond(start);
+        return GenerationTimeline.builder()
+                .interval(from, from + 1800)
+                .percentage("wind", wind)
+                .build();
+    }
+
+    private static long epochSecond(String time) {
+        return ZonedDateTime.parse(time).toEpochSecond();
+    }
+}
@@ -0,0 +1,101 @@
+package org.codibly.service.schedule;
+
+import org.codibly.model.GenerationTimeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FleetChargingSchedulerTest {
+
+    private static final long START = 1_735_689_600L;
+
+    private static final long HALF_HOUR = 1800;
+
+    @Test
+    @DisplayName("Should spread vehicles over the greenest slots without exceeding the site capacity")
+    void schedule_shouldRespectSiteCapacity() {
+        // given
+        FleetChargingScheduler scheduler = new FleetChargingScheduler(timeline(4), new double[]{10, 90, 80, 20}, 10);
+        List<VehicleDemand> vehicles = List.of(
+                new VehicleDemand(5, 10, START, START + 4 * HALF_HOUR),
+                new VehicleDemand(5, 10, START, START + 4 * HALF_HOUR)
+        );
+
+        // when
+        double[][] power = scheduler.schedule(vehicles);
+
+        // then
+        assertThat(power[0]).containsExactly(0, 10, 0, 0);
+        assertThat(power[1]).containsExactly(0, 0, 10, 0);
+    }
+
+    @Test
+    @DisplayName("Should let the least flexible vehicle claim its slots first")
+    void schedule_shouldPrioritiseVehiclesWithLeastSlack() {
+        // given
+        FleetChargingScheduler scheduler = new FleetChargingScheduler(timeline(4), new double[]{10, 90, 80, 20}, 10);
+        List<VehicleDemand> vehicles = List.of(
+                new VehicleDemand(5, 10, START, START + 4 * HALF_HOUR),
+                new VehicleDemand(5, 10, START + HALF_HOUR, START + 2 * HALF_HOUR)
+        );
+
+        // when
+        double[][] power = scheduler.schedule(vehicles);
+
+        // then
+        assertThat(power[1]).containsExactly(0, 10, 0, 0);
+        assertThat(power[0]).containsExactly(0, 0, 10, 0);
+    }
+
+    @Test
+    @DisplayName("Should meet every need it can and never overload a slot for a large fleet")
+    void schedule_largeFleet_shouldStayWithinLimits() {
+        // given
+        int slots = 144;
+        Random random = new Random(7);
+        double[] cleanShares = new double[slots];
+        for (int i = 0; i < slots; i++) {
+            cleanShares[i] = random.nextDouble() * 100;
+        }
+        List<VehicleDemand> vehicles = new ArrayList<>();
+        for (int v = 0; v < 500; v++) {
+            long from = START + random.nextInt(48) * HALF_HOUR;
+            vehicles.add(new VehicleDemand(10 + random.nextInt(40), 11, from, from + 48 * HALF_HOUR));
+        }
+        FleetChargingScheduler scheduler = new FleetChargingScheduler(timeline(slots), cleanShares, 1000);
+
+        // when
+        double[][] power = scheduler.schedule(vehicles);
+
+        // then
+        for (int i = 0; i < slots; i++) {
+            double total = 0;
+            for (double[] vehiclePower : power) {
+                total += vehiclePower[i];
+            }
+            assertThat(total).isLessThanOrEqualTo(1000 + 1e-9);
+        }
+        for (int v = 0; v < vehicles.size(); v++) {
+            double energy = 0;
+            for (int i = 0; i < slots; i++) {
+                assertThat(power[v][i]).isLessThanOrEqualTo(11);
+                energy += power[v][i] * 0.5;
+            }
+            assertThat(energy).isCloseTo(vehicles.get(v).energyKwh(), within(1e-6));
+        }
+    }
+
+    private static GenerationTimeline timeline(int size) {
+        GenerationTimeline.Builder builder = GenerationTimeline.builder();
+        for (int i = 0; i < size; i++) {
+            builder.interval(START + i * HALF_HOUR, START + (i + 1) * HALF_HOUR);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,46 @@
+package org.codibly.service.window;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CleanEnergyWindowIndexTest {
+
+    @Test
+    @DisplayName("Should return the earliest best window between the given interval indexes")
+    void findBestWindow_withBounds_shouldPickEarliestBestWindow() {
+        // given
+        CleanEnergyWindowIndex index = new CleanEnergyWindowIndex(
+                new CleanEnergyWindowSearch(new double[]{90, 90, 10, 50, 50, 10, 50, 50}), 4);
+
+        // when & then
+        assertThat(index.findBestWindow(2, 0, 8)).isEqualTo(0);
+        assertThat(index.findBestWindow(2, 2, 8)).isEqualTo(3);
+        assertThat(index.findBestWindow(2, 5, 8)).isEqualTo(6);
+        assertThat(index.findBestWindow(2, 6, 7)).isEqualTo(-1);
+        assertThat(index.findBestWindow(6, 1, 8)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should find the same window as a scan of every window between the bounds")
+    void findBestWindow_shouldMatchScan() {
+        // given
+        Random random = new Random(11);
+        double[] cleanShares = random.ints(200, 0, 20).asDoubleStream().toArray();
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(cleanShares);
+        CleanEnergyWindowIndex index = new CleanEnergyWindowIndex(search, 12);
+
+        for (int query = 0; query < 2_000; query++) {
+            int windowSize = 1 + random.nextInt(12);
+            int fromIndex = random.nextInt(cleanShares.length);
+            int toIndex = fromIndex + random.nextInt(cleanShares.length - fromIndex + 1);
+
+            // when & then
+            assertThat(index.findBestWindow(windowSize, fromIndex, toIndex))
+                    .isEqualTo(search.findBestWindow(windowSize, fromIndex, toIndex));
+        }
+    }
+}
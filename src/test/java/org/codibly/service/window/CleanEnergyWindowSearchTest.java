@@ -0,0 +1,138 @@
+package org.codibly.service.window;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CleanEnergyWindowSearchTest {
+
+    @Test
+    @DisplayName("Should return the earliest window with the highest clean energy share")
+    void findBestWindow_shouldPickEarliestBestWindow() {
+        // given
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(new double[]{10, 50, 50, 10, 50, 50});
+
+        // when
+        int bestStartIndex = search.findBestWindow(2);
+
+        // then
+        assertThat(bestStartIndex).isEqualTo(1);
+        assertThat(search.averageOf(bestStartIndex, 2)).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should return -1 when there are fewer intervals than the window size")
+    void findBestWindow_notEnoughData_shouldReturnMinusOne() {
+        // given
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(new double[]{10, 20});
+
+        // when & then
+        assertThat(search.findBestWindow(3)).isEqualTo(-1);
+        assertThat(search.findBestWindow(0)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should only consider windows between the given interval indexes")
+    void findBestWindow_withBounds_shouldStayWithinBounds() {
+        // given
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(new double[]{90, 90, 10, 20, 30, 90});
+
+        // when & then
+        assertThat(search.findBestWindow(2, 2, 5)).isEqualTo(3);
+        assertThat(search.findBestWindow(2, 4, 5)).isEqualTo(-1);
+        assertThat(search.findBestWindow(2, -1, 99)).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Should find the same window as a full scan of every window")
+    void findBestWindow_shouldMatchBruteForce() {
+        // given
+        double[] cleanShares = new Random(42).doubles(500, 0, 100).toArray();
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(cleanShares);
+
+        for (int windowSize = 1; windowSize <= 12; windowSize++) {
+            // when
+            int bestStartIndex = search.findBestWindow(windowSize);
+
+            // then
+            assertThat(search.averageOf(bestStartIndex, windowSize))
+                    .isCloseTo(bruteForceBestAverage(cleanShares, windowSize), within(1e-9));
+        }
+    }
+
+    @Test
+    @DisplayName("Should rank the best windows and skip windows overlapping a better one")
+    void findBestWindows_shouldRankWindowsWithoutOverlap() {
+        // given
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(new double[]{10, 80, 90, 20, 70, 70, 30, 90});
+
+        // when & then
+        assertThat(search.findBestWindows(2, 4, 2)).containsExactly(1, 4, 6);
+        assertThat(search.findBestWindows(2, 4, 1)).containsExactly(1, 4, 6, 2);
+        assertThat(search.findBestWindows(2, 1, 2)).containsExactly(1);
+        assertThat(search.findBestWindows(9, 3, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should pick the same windows as a greedy selection over every window")
+    void findBestWindows_shouldMatchBruteForce() {
+        // given
+        double[] cleanShares = new Random(7).doubles(300, 0, 100).toArray();
+        CleanEnergyWindowSearch search = new CleanEnergyWindowSearch(cleanShares);
+
+        for (int windowSize = 1; windowSize <= 12; windowSize += 3) {
+            for (int distance : new int[]{1, windowSize}) {
+                // when
+                int[] startIndexes = search.findBestWindows(windowSize, 5, distance);
+
+                // then
+                assertThat(startIndexes).containsExactly(bruteForceBestWindows(cleanShares, windowSize, 5, distance));
+            }
+        }
+    }
+
+    private int[] bruteForceBestWindows(double[] cleanShares, int windowSize, int count, int distance) {
+        int[] selected = new int[count];
+        int selectedCount = 0;
+        boolean[] blocked = new boolean[cleanShares.length];
+        while (selectedCount < count) {
+            int best = -1;
+            double bestSum = -1;
+            for (int i = 0; i + windowSize <= cleanShares.length; i++) {
+                double sum = 0;
+                for (int j = i; j < i + windowSize; j++) {
+                    sum += cleanShares[j];
+                }
+                if (!blocked[i] && sum > bestSum + 1e-9) {
+                    best = i;
+                    bestSum = sum;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            selected[selectedCount++] = best;
+            for (int i = Math.max(0, best - distance + 1); i < Math.min(cleanShares.length, best + distance); i++) {
+                blocked[i] = true;
+            }
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    private double bruteForceBestAverage(double[] cleanShares, int windowSize) {
+        double best = -1;
+        for (int i = 0; i + windowSize <= cleanShares.length; i++) {
+            double sum = 0;
+            for (int j = i; j < i + windowSize; j++) {
+                sum += cleanShares[j];
+            }
+            best = Math.max(best, sum / windowSize);
+        }
+        return best;
+    }
+}